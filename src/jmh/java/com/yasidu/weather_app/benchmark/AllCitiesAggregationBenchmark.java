@@ -0,0 +1,89 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.service.impl.CityCatalog;
+import com.yasidu.weather_app.service.impl.CityCatalogReader;
+import com.yasidu.weather_app.service.impl.WeatherCacheLoader;
+import com.yasidu.weather_app.service.impl.WeatherServiceImpl;
+import com.yasidu.weather_app.util.FanOutExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WeatherServiceImpl#fetchWeatherForAllCities} against an upstream stubbed with recorded payloads.
+ * {@code warm} measures assembly from cached entries, {@code cold} adds batched group fetches and parsing for
+ * every city.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllCitiesAggregationBenchmark {
+
+	@Param({"8", "200"})
+	public int cityCount;
+
+	private FanOutExecutor fanOutExecutor;
+	private AsyncLoadingCache<String, CurrentWeather> weatherCache;
+	private WeatherServiceImpl service;
+
+	@Setup
+	public void setUp() throws IOException {
+		// The blocking all-cities path only uses the RestTemplate; no async client is needed.
+		OpenWeatherClient client = BenchmarkSupport.openWeatherClient(BenchmarkSupport.stubRestTemplate(), null, 16);
+		ReflectionTestUtils.setField(client, "baseUrl", "http://openweather.stub/data/2.5");
+		ReflectionTestUtils.setField(client, "apiKey", "benchmark");
+		ReflectionTestUtils.setField(client, "units", "metric");
+
+		fanOutExecutor = new FanOutExecutor(16, false);
+		WeatherCacheLoader loader = BenchmarkSupport.weatherCacheLoader(client);
+		weatherCache = Caffeine.newBuilder().maximumSize(10_000).buildAsync(loader);
+
+		Path catalogFile = Files.createTempFile("cities", ".json");
+		BenchmarkSupport.OBJECT_MAPPER.writeValue(catalogFile.toFile(), Map.of("List", BenchmarkSupport.cities(cityCount)));
+		CityCatalog cityCatalog = new CityCatalog(
+				new CityCatalogReader(BenchmarkSupport.OBJECT_MAPPER, new DefaultResourceLoader()), event -> {
+		}, catalogFile.toUri().toString(), false, false);
+		cityCatalog.init();
+		Files.delete(catalogFile);
+
+		service = new WeatherServiceImpl(fanOutExecutor, weatherCache, loader,
+				new SimpleMeterRegistry(), event -> {
+		}, cityCatalog);
+		ReflectionTestUtils.setField(service, "perCityTimeout", 3000L);
+		ReflectionTestUtils.setField(service, "overallTimeout", 8000L);
+
+		service.fetchWeatherForAllCities();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		fanOutExecutor.destroy();
+	}
+
+	@Benchmark
+	public List<CityWeatherView> warm() {
+		return service.fetchWeatherForAllCities();
+	}
+
+	@Benchmark
+	public List<CityWeatherView> cold() {
+		weatherCache.synchronous().invalidateAll();
+		return service.fetchWeatherForAllCities();
+	}
+}
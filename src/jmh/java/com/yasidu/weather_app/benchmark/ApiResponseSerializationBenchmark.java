@@ -0,0 +1,56 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.yasidu.weather_app.client.CurrentWeatherReader;
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.response.ApiResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the {@link ApiResponse} envelopes returned by the weather endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+	@Param({"8", "200"})
+	public int cityCount;
+
+	private ApiResponse<CurrentWeather> single;
+	private ApiResponse<List<CityWeatherView>> allCities;
+
+	@Setup
+	public void setUp() throws IOException {
+		CurrentWeather weather = new CurrentWeatherReader(BenchmarkSupport.OBJECT_MAPPER.getFactory())
+				.readCity("1248991", BenchmarkSupport.weatherPayload());
+		single = new ApiResponse<>(true, "Weather data retrieved successfully", weather, 200);
+
+		List<CityWeatherView> data = new ArrayList<>(cityCount);
+		for (int i = 0; i < cityCount; i++) {
+			CityDto city = new CityDto(String.valueOf(1_000_000 + i), "City " + i, "20.0", "Clouds");
+			data.add(CityWeatherView.of(city, weather, CityWeatherView.FetchStatus.OK));
+		}
+		allCities = new ApiResponse<>(true, "Weather data for all cities retrieved successfully", data, 200);
+	}
+
+	@Benchmark
+	public byte[] singleCity() throws JsonProcessingException {
+		return BenchmarkSupport.OBJECT_MAPPER.writeValueAsBytes(single);
+	}
+
+	@Benchmark
+	public byte[] allCities() throws JsonProcessingException {
+		return BenchmarkSupport.OBJECT_MAPPER.writeValueAsBytes(allCities);
+	}
+}
@@ -0,0 +1,146 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sun.net.httpserver.HttpServer;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.HttpClientConfig;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.service.impl.CityCatalog;
+import com.yasidu.weather_app.service.impl.CityCatalogReader;
+import com.yasidu.weather_app.service.impl.WeatherCacheLoader;
+import com.yasidu.weather_app.service.impl.WeatherServiceImpl;
+import com.yasidu.weather_app.util.FanOutExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for single-city requests that miss the cache, as served by a fixed pool of request threads (the
+ * Tomcat worker pool): the blocking {@code fetchWeatherForCity} holds a worker for the whole upstream round
+ * trip, while {@code fetchWeatherForCityAsync} hands it back immediately, as the controller now does.
+ * <p>
+ * Scores are requests per second for a burst of {@link #REQUESTS} concurrent requests against a loopback
+ * stub with {@code latencyMs} of upstream latency, using the production connection pool sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(AsyncWeatherLoadBenchmark.REQUESTS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncWeatherLoadBenchmark {
+
+	static final int REQUESTS = 200;
+
+	@Param({"8"})
+	public int workerThreads;
+
+	@Param({"50"})
+	public long latencyMs;
+
+	private HttpServer server;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private CloseableHttpClient httpClient;
+	private PoolingAsyncClientConnectionManager asyncConnectionManager;
+	private CloseableHttpAsyncClient asyncHttpClient;
+	private FanOutExecutor fanOutExecutor;
+	private AsyncLoadingCache<String, CurrentWeather> weatherCache;
+	private WeatherServiceImpl service;
+	private ExecutorService workers;
+
+	@Setup
+	public void setUp() {
+		server = BenchmarkSupport.stubServer(latencyMs, 0);
+
+		HttpClientConfig config = new HttpClientConfig();
+		connectionManager = config.openWeatherConnectionManager(50, 20, 2_000, 10_000);
+		httpClient = config.openWeatherHttpClient(connectionManager, 2_000, 10_000, 30_000);
+		asyncConnectionManager = config.openWeatherAsyncConnectionManager(50, 20, 2_000, 10_000);
+		asyncHttpClient = config.openWeatherAsyncHttpClient(asyncConnectionManager, 2_000, 10_000, 30_000);
+
+		OpenWeatherClient client = BenchmarkSupport.openWeatherClient(config.restTemplate(httpClient), asyncHttpClient,
+				REQUESTS);
+		ReflectionTestUtils.setField(client, "baseUrl", BenchmarkSupport.baseUrl(server));
+		ReflectionTestUtils.setField(client, "apiKey", "benchmark");
+		ReflectionTestUtils.setField(client, "units", "metric");
+
+		fanOutExecutor = new FanOutExecutor(16, false);
+		WeatherCacheLoader loader = BenchmarkSupport.weatherCacheLoader(client);
+		weatherCache = Caffeine.newBuilder().maximumSize(10_000).buildAsync(loader);
+		// Single-city lookups never touch the catalog, so it is left empty.
+		CityCatalog cityCatalog = new CityCatalog(
+				new CityCatalogReader(BenchmarkSupport.OBJECT_MAPPER, new DefaultResourceLoader()), event -> {
+		}, "cities.json", false, false);
+		service = new WeatherServiceImpl(fanOutExecutor, weatherCache, loader,
+				new SimpleMeterRegistry(), event -> {
+		}, cityCatalog);
+
+		workers = Executors.newFixedThreadPool(workerThreads);
+	}
+
+	@Setup(Level.Invocation)
+	public void coldCache() {
+		weatherCache.synchronous().invalidateAll();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		workers.shutdownNow();
+		fanOutExecutor.destroy();
+		asyncHttpClient.close();
+		asyncConnectionManager.close();
+		httpClient.close();
+		connectionManager.close();
+		server.stop(0);
+	}
+
+	@Benchmark
+	public List<CurrentWeather> blocking() throws InterruptedException, ExecutionException {
+		List<Future<CurrentWeather>> responses = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			String cityCode = cityCode(i);
+			responses.add(workers.submit(() -> service.fetchWeatherForCity(cityCode)));
+		}
+
+		List<CurrentWeather> results = new ArrayList<>(REQUESTS);
+		for (Future<CurrentWeather> response : responses) {
+			results.add(response.get());
+		}
+		return results;
+	}
+
+	@Benchmark
+	public List<CurrentWeather> async() throws InterruptedException, ExecutionException {
+		List<Future<CompletableFuture<CurrentWeather>>> handlers = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			String cityCode = cityCode(i);
+			handlers.add(workers.submit(() -> service.fetchWeatherForCityAsync(cityCode)));
+		}
+
+		List<CompletableFuture<CurrentWeather>> responses = new ArrayList<>(REQUESTS);
+		for (Future<CompletableFuture<CurrentWeather>> handler : handlers) {
+			responses.add(handler.get());
+		}
+		return responses.stream().map(CompletableFuture::join).toList();
+	}
+
+	private static String cityCode(int i) {
+		return String.valueOf(1_000_000 + i);
+	}
+}
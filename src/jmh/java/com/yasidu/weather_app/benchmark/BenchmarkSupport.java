@@ -0,0 +1,210 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sun.net.httpserver.HttpServer;
+import com.yasidu.weather_app.cache.NoSharedWeatherStore;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.ResilienceConfig;
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.service.impl.LastKnownGoodWeather;
+import com.yasidu.weather_app.service.impl.WeatherCacheLoader;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Offline fixtures shared by the benchmarks: recorded upstream payloads, synthetic city lists and a
+ * {@link RestTemplate} that answers OpenWeather URLs from those payloads.
+ */
+final class BenchmarkSupport {
+
+	static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+	private static final String[] STATUSES = {"Clear", "Clouds", "Rain", "Snow", "Mist"};
+	private static final String[] SYLLABLES = {"co", "lom", "bo", "to", "kyo", "li", "ver", "pool", "pa", "ris",
+			"syd", "ney", "bos", "ton", "shang", "hai", "lon", "don", "ber", "lin", "ma", "drid", "os", "lo"};
+
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * An {@link OpenWeatherClient} behind a default circuit breaker and a bulkhead admitting {@code concurrency}
+	 * calls, so neither limits the measured load.
+	 */
+	static OpenWeatherClient openWeatherClient(RestTemplate restTemplate, CloseableHttpAsyncClient asyncHttpClient,
+											   int concurrency) {
+		return new OpenWeatherClient(restTemplate, asyncHttpClient, OBJECT_MAPPER,
+				CircuitBreaker.ofDefaults(ResilienceConfig.OPENWEATHER),
+				Bulkhead.of(ResilienceConfig.OPENWEATHER, BulkheadConfig.custom().maxConcurrentCalls(concurrency).build()),
+				new SimpleMeterRegistry());
+	}
+
+	static WeatherCacheLoader weatherCacheLoader(OpenWeatherClient client) {
+		return new WeatherCacheLoader(client, new LastKnownGoodWeather(10_000, Duration.ofHours(6)),
+				Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(Duration.ofMinutes(1)).build(), event -> {
+		}, new NoSharedWeatherStore());
+	}
+
+	/**
+	 * The recorded {@code /weather} response for Colombo.
+	 */
+	static byte[] weatherPayload() {
+		try {
+			return new ClassPathResource("payloads/weather-1248991.json").getContentAsByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * A {@code /group} response for the given ids, made of the recorded single-city payload.
+	 */
+	static byte[] groupPayload(List<String> cityCodes) {
+		try {
+			ObjectNode template = (ObjectNode) OBJECT_MAPPER.readTree(weatherPayload());
+			ObjectNode group = OBJECT_MAPPER.createObjectNode();
+			group.put("cnt", cityCodes.size());
+			ArrayNode list = group.putArray("list");
+			for (String cityCode : cityCodes) {
+				list.add(template.deepCopy().put("id", Long.parseLong(cityCode)));
+			}
+			return OBJECT_MAPPER.writeValueAsBytes(group);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Deterministic synthetic cities with pronounceable names, for list sizes beyond {@code cities.json}.
+	 */
+	static List<CityDto> cities(int count) {
+		List<CityDto> cities = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			StringBuilder name = new StringBuilder();
+			int seed = i;
+			do {
+				name.append(SYLLABLES[seed % SYLLABLES.length]);
+				seed /= SYLLABLES.length;
+			} while (seed > 0);
+			name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+			cities.add(new CityDto(String.valueOf(1_000_000 + i), name.toString(),
+					String.valueOf(10 + i % 25), STATUSES[i % STATUSES.length]));
+		}
+		return cities;
+	}
+
+	/**
+	 * A loopback HTTP server that answers {@code /group} like {@link #groupPayload} and every other path with the
+	 * recorded {@code /weather} payload, gzip-encoded when the client asks for it. Each response is delayed by {@code latencyMs} to stand in for the network
+	 * round trip, and the first response on every new connection additionally by {@code handshakeMs} to stand in
+	 * for TCP and TLS setup, which loopback connections do not pay.
+	 */
+	static HttpServer stubServer(long latencyMs, long handshakeMs) {
+		byte[] plain = weatherPayload();
+		Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+		byte[] gzipped = gzip(plain);
+		Map<String, byte[]> groups = new ConcurrentHashMap<>();
+		// Without TCP_NODELAY the stub's separate header and body writes stall on delayed ACKs (~40 ms each).
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		// It also closes idle keep-alive connections beyond 200, which the clients' pools would then reuse.
+		System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+			server.createContext("/", exchange -> {
+				long delayMs = latencyMs;
+				if (connections.add(exchange.getRemoteAddress())) {
+					delayMs += handshakeMs;
+				}
+				if (delayMs > 0) {
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delayMs));
+				}
+				boolean gzip = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")).contains("gzip");
+				byte[] body = gzip ? gzipped : plain;
+				if (exchange.getRequestURI().getPath().endsWith("/group")) {
+					String ids = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build().getQueryParams()
+							.getFirst("id");
+					body = groups.computeIfAbsent(gzip + ids, key -> {
+						byte[] group = groupPayload(List.of(ids.split(",")));
+						return gzip ? gzip(group) : group;
+					});
+				}
+				if (gzip) {
+					exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+				}
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			});
+			server.setExecutor(Executors.newCachedThreadPool());
+			server.start();
+			return server;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static String baseUrl(HttpServer server) {
+		return "http://localhost:" + server.getAddress().getPort() + "/data/2.5";
+	}
+
+	private static byte[] gzip(byte[] bytes) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * A {@link RestTemplate} that serves {@code /weather} and {@code /group} from recorded payloads without
+	 * touching the network. Group responses are built once per distinct id list.
+	 */
+	static RestTemplate stubRestTemplate() {
+		byte[] weather = weatherPayload();
+		Map<String, byte[]> groups = new ConcurrentHashMap<>();
+		return new RestTemplate((URI uri, org.springframework.http.HttpMethod method) -> {
+			MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+			byte[] body = weather;
+			if (uri.getPath().endsWith("/group")) {
+				String ids = UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst("id");
+				body = groups.computeIfAbsent(ids, key -> groupPayload(List.of(key.split(","))));
+			}
+			request.setResponse(new MockClientHttpResponse(body, HttpStatus.OK));
+			return request;
+		});
+	}
+}
@@ -0,0 +1,58 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.util.CitySearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * City search over lists up to the size of the full upstream catalog: the {@link CitySearchIndex} used by
+ * {@code CitySyncServiceImpl.searchCities} against the former lowercase-and-scan loop, kept here as the
+ * baseline. Every variant returns the first page of 50 results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CitySearchBenchmark {
+
+	private static final int PAGE_SIZE = 50;
+
+	@Param({"1000", "200000"})
+	public int cityCount;
+
+	@Param({"lon", "Sydney", "zzz"})
+	public String query;
+
+	private List<CityDto> cities;
+	private CitySearchIndex index;
+
+	@Setup
+	public void setUp() {
+		cities = BenchmarkSupport.cities(cityCount);
+		index = CitySearchIndex.build(cities);
+	}
+
+	@Benchmark
+	public List<CityDto> scan() {
+		String searchTerm = query.toLowerCase().trim();
+		return cities.stream()
+				.filter(city -> city.getCityName().toLowerCase().contains(searchTerm))
+				.limit(PAGE_SIZE)
+				.toList();
+	}
+
+	@Benchmark
+	public List<CityDto> indexedContains() {
+		return index.contains(query, 0, PAGE_SIZE);
+	}
+
+	@Benchmark
+	public List<CityDto> indexedPrefix() {
+		return index.startsWith(query, 0, PAGE_SIZE);
+	}
+}
@@ -0,0 +1,125 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import com.yasidu.weather_app.config.CachingJwtDecoder;
+import com.yasidu.weather_app.config.SecurityConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication cost per request: decoding a bearer token with the signature check, expiry, issuer and audience
+ * validation of {@link SecurityConfig#verifyingJwtDecoder} on every call, against the {@link CachingJwtDecoder}
+ * in front of it. Keys come from a loopback JWKS stub through the same refresh-ahead key source as in production,
+ * loaded before the measurement starts.
+ * <p>
+ * {@code tokenCount} clients each send their own token in turn, as a set of dashboards would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+	private static final String ISSUER = "https://tenant.example.com/";
+	private static final String AUDIENCE = "https://weather-api";
+
+	@Param({"verifying", "caching"})
+	public String decoder;
+
+	@Param({"1", "1000"})
+	public int tokenCount;
+
+	private HttpServer server;
+	private JWKSource<SecurityContext> jwkSource;
+	private JwtDecoder jwtDecoder;
+	private String[] tokens;
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		RSAKey signingKey = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+		byte[] jwks = new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/.well-known/jwks.json", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, jwks.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(jwks);
+			}
+		});
+		server.start();
+
+		jwkSource = JWKSourceBuilder.<SecurityContext>create(new URL(
+						"http://localhost:" + server.getAddress().getPort() + "/.well-known/jwks.json"))
+				.cache(300_000, JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+				.refreshAheadCache(60_000, true)
+				.build();
+		jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+
+		JwtDecoder verifying = SecurityConfig.verifyingJwtDecoder(jwkSource, ISSUER, AUDIENCE);
+		jwtDecoder = "caching".equals(decoder)
+				? new CachingJwtDecoder(verifying, 10_000, Duration.ofMinutes(5)) : verifying;
+
+		tokens = new String[tokenCount];
+		for (int i = 0; i < tokenCount; i++) {
+			tokens[i] = token(signingKey, "user-" + i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		((Closeable) jwkSource).close();
+		server.stop(0);
+	}
+
+	@Benchmark
+	public Jwt decode() {
+		String token = tokens[next];
+		next = next + 1 == tokens.length ? 0 : next + 1;
+		return jwtDecoder.decode(token);
+	}
+
+	private static String token(RSAKey signingKey, String subject) throws JOSEException {
+		Instant now = Instant.now();
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+				new JWTClaimsSet.Builder()
+						.issuer(ISSUER)
+						.audience(AUDIENCE)
+						.subject(subject)
+						.issueTime(Date.from(now))
+						.expirationTime(Date.from(now.plus(Duration.ofHours(1))))
+						.claim("scope", "openid profile email")
+						.build());
+		jwt.sign(new RSASSASigner(signingKey));
+		return jwt.serialize();
+	}
+}
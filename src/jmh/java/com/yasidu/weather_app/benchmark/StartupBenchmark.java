@@ -0,0 +1,154 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import com.yasidu.weather_app.WeatherApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to first request: from starting the application until it answers an authenticated
+ * {@code GET /api/v1/weather/cities}, which needs the security chain, the signing keys and the city catalog. Each
+ * fork is one cold start; {@code profile} compares the default configuration with {@code fast-startup}.
+ * <p>
+ * Runs offline: an in-memory H2 database, a loopback JWKS stub and no cache warmer. To include Spring AOT and CDS,
+ * time the packaged application from the {@code fast-startup} Maven profile the same way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+	private static final String ISSUER = "https://tenant.example.com/";
+	private static final String AUDIENCE = "https://weather-api";
+
+	@Param({"default", "fast-startup"})
+	public String profile;
+
+	private HttpServer jwksServer;
+	private HttpClient httpClient;
+	private HttpRequest firstRequest;
+	private String[] arguments;
+	private CompletableFuture<ConfigurableApplicationContext> application;
+
+	@Setup
+	public void setUp() throws Exception {
+		RSAKey signingKey = new RSAKeyGenerator(2048).keyID("startup").generate();
+		byte[] jwks = new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+		jwksServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		jwksServer.createContext("/.well-known/jwks.json", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, jwks.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(jwks);
+			}
+		});
+		jwksServer.start();
+
+		int port = freePort();
+		arguments = new String[]{
+				"--server.port=" + port,
+				"--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+				"--DB_USERNAME=sa",
+				"--DB_PASSWORD=",
+				"--DB_DIALECT=org.hibernate.dialect.H2Dialect",
+				"--AUTH0_DOMAIN=tenant.example.com",
+				"--AUTH0_ISSUER_URI=" + ISSUER,
+				"--AUTH0_AUDIENCE=" + AUDIENCE,
+				"--AUTH0_CLIENT_ID=benchmark",
+				"--AUTH0_CLIENT_SECRET=benchmark",
+				"--OPENWEATHER_API_KEY=benchmark",
+				"--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=http://localhost:"
+						+ jwksServer.getAddress().getPort() + "/.well-known/jwks.json",
+				"--app.weather.warmer.enabled=false",
+				"--logging.level.root=WARN"
+		};
+
+		httpClient = HttpClient.newHttpClient();
+		firstRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/weather/cities"))
+				.header("Authorization", "Bearer " + token(signingKey))
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (application != null) {
+			application.join().close();
+		}
+		jwksServer.stop(0);
+	}
+
+	/**
+	 * Polls from the moment the application is started, so requests served before startup has fully finished count.
+	 */
+	@Benchmark
+	public int timeToFirstRequest() throws Exception {
+		application = CompletableFuture.supplyAsync(() -> new SpringApplicationBuilder(WeatherApplication.class)
+				.profiles(profile.equals("default") ? new String[0] : new String[]{profile})
+				.run(arguments));
+		while (true) {
+			if (application.isCompletedExceptionally()) {
+				application.join();
+			}
+			try {
+				HttpResponse<String> response = httpClient.send(firstRequest, HttpResponse.BodyHandlers.ofString());
+				if (response.statusCode() != 200) {
+					throw new IllegalStateException("First request failed with " + response.statusCode() + ": "
+							+ response.body());
+				}
+				return response.body().length();
+			} catch (ConnectException e) {
+				Thread.sleep(5);
+			}
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static String token(RSAKey signingKey) throws JOSEException {
+		Instant now = Instant.now();
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+				new JWTClaimsSet.Builder()
+						.issuer(ISSUER)
+						.audience(AUDIENCE)
+						.subject("startup")
+						.issueTime(Date.from(now))
+						.expirationTime(Date.from(now.plus(Duration.ofHours(1))))
+						.build());
+		jwt.sign(new RSASSASigner(signingKey));
+		return jwt.serialize();
+	}
+}
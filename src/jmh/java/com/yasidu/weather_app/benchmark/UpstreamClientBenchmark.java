@@ -0,0 +1,79 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.HttpClientConfig;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OpenWeatherClient#fetchCity} against a loopback stub server, with the pooled Apache client from
+ * {@link HttpClientConfig} against the former bare {@code new RestTemplate()} ({@code HttpURLConnection}).
+ * <p>
+ * {@code handshakeMs} charges every new connection what setting it up would cost against a remote TLS endpoint,
+ * so connection churn shows up in the score. Run with {@code -t} to vary the number of concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class UpstreamClientBenchmark {
+
+	@Param({"pooled", "simple"})
+	public String client;
+
+	@Param({"20"})
+	public long latencyMs;
+
+	@Param({"0", "30"})
+	public long handshakeMs;
+
+	private HttpServer server;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private CloseableHttpClient httpClient;
+	private OpenWeatherClient openWeatherClient;
+
+	@Setup
+	public void setUp() {
+		server = BenchmarkSupport.stubServer(latencyMs, handshakeMs);
+
+		RestTemplate restTemplate;
+		if ("pooled".equals(client)) {
+			HttpClientConfig config = new HttpClientConfig();
+			connectionManager = config.openWeatherConnectionManager(50, 20, 2_000, 10_000);
+			httpClient = config.openWeatherHttpClient(connectionManager, 2_000, 10_000, 30_000);
+			restTemplate = config.restTemplate(httpClient);
+		} else {
+			restTemplate = new RestTemplate();
+		}
+
+		openWeatherClient = BenchmarkSupport.openWeatherClient(restTemplate, null, 8);
+		ReflectionTestUtils.setField(openWeatherClient, "baseUrl", BenchmarkSupport.baseUrl(server));
+		ReflectionTestUtils.setField(openWeatherClient, "apiKey", "benchmark");
+		ReflectionTestUtils.setField(openWeatherClient, "units", "metric");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (httpClient != null) {
+			httpClient.close();
+			connectionManager.close();
+		}
+		server.stop(0);
+	}
+
+	@Benchmark
+	public CurrentWeather fetchCity() throws IOException {
+		return openWeatherClient.fetchCity("1248991");
+	}
+}
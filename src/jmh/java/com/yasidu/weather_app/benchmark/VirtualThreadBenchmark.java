@@ -0,0 +1,136 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sun.net.httpserver.HttpServer;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.HttpClientConfig;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.service.impl.CityCatalog;
+import com.yasidu.weather_app.service.impl.CityCatalogReader;
+import com.yasidu.weather_app.service.impl.WeatherCacheLoader;
+import com.yasidu.weather_app.service.impl.WeatherServiceImpl;
+import com.yasidu.weather_app.util.FanOutExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking request handling on Tomcat's default pool of 200 platform threads against one virtual thread per
+ * request, which is what {@code spring.threads.virtual.enabled} switches Tomcat to. Each request calls the
+ * blocking {@code fetchWeatherForCity} for a city missing from the cache.
+ * <p>
+ * Scores are requests per second for a burst of {@link #REQUESTS} concurrent requests against a loopback stub
+ * with {@code latencyMs} of upstream latency. The upstream pool is sized for the whole burst so that the thread
+ * model is the only limit. Run on Java 21 with {@code -Pjmh,java21}; add {@code -prof gc} for allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(VirtualThreadBenchmark.REQUESTS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+	static final int REQUESTS = 1000;
+	private static final int TOMCAT_MAX_THREADS = 200;
+
+	@Param({"platform", "virtual"})
+	public String threads;
+
+	@Param({"200"})
+	public long latencyMs;
+
+	private HttpServer server;
+	private PoolingAsyncClientConnectionManager asyncConnectionManager;
+	private CloseableHttpAsyncClient asyncHttpClient;
+	private FanOutExecutor fanOutExecutor;
+	private AsyncLoadingCache<String, CurrentWeather> weatherCache;
+	private WeatherServiceImpl service;
+	private AsyncTaskExecutor requestExecutor;
+
+	@Setup
+	public void setUp() {
+		server = BenchmarkSupport.stubServer(latencyMs, 0);
+
+		HttpClientConfig config = new HttpClientConfig();
+		asyncConnectionManager = config.openWeatherAsyncConnectionManager(REQUESTS, REQUESTS, 2_000, 10_000);
+		asyncHttpClient = config.openWeatherAsyncHttpClient(asyncConnectionManager, 2_000, 10_000, 30_000);
+
+		// Single-city lookups only use the async client.
+		OpenWeatherClient client = BenchmarkSupport.openWeatherClient(null, asyncHttpClient, REQUESTS);
+		ReflectionTestUtils.setField(client, "baseUrl", BenchmarkSupport.baseUrl(server));
+		ReflectionTestUtils.setField(client, "apiKey", "benchmark");
+		ReflectionTestUtils.setField(client, "units", "metric");
+
+		boolean virtual = "virtual".equals(threads);
+		fanOutExecutor = new FanOutExecutor(16, virtual);
+		WeatherCacheLoader loader = BenchmarkSupport.weatherCacheLoader(client);
+		weatherCache = Caffeine.newBuilder().maximumSize(10_000).buildAsync(loader);
+		CityCatalog cityCatalog = new CityCatalog(
+				new CityCatalogReader(BenchmarkSupport.OBJECT_MAPPER, new DefaultResourceLoader()), event -> {
+		}, "cities.json", false, false);
+		service = new WeatherServiceImpl(fanOutExecutor, weatherCache, loader,
+				new SimpleMeterRegistry(), event -> {
+		}, cityCatalog);
+
+		if (virtual) {
+			SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("request-");
+			executor.setVirtualThreads(true);
+			requestExecutor = executor;
+		} else {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setCorePoolSize(TOMCAT_MAX_THREADS);
+			executor.setMaxPoolSize(TOMCAT_MAX_THREADS);
+			executor.setThreadNamePrefix("request-");
+			executor.initialize();
+			requestExecutor = executor;
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void coldCache() {
+		weatherCache.synchronous().invalidateAll();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		if (requestExecutor instanceof ThreadPoolTaskExecutor pool) {
+			pool.shutdown();
+		} else {
+			((SimpleAsyncTaskExecutor) requestExecutor).close();
+		}
+		fanOutExecutor.destroy();
+		asyncHttpClient.close();
+		asyncConnectionManager.close();
+		server.stop(0);
+	}
+
+	@Benchmark
+	public List<CurrentWeather> blockingRequests() throws InterruptedException, ExecutionException {
+		List<Future<CurrentWeather>> responses = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			String cityCode = String.valueOf(1_000_000 + i);
+			responses.add(requestExecutor.submit(() -> service.fetchWeatherForCity(cityCode)));
+		}
+
+		List<CurrentWeather> results = new ArrayList<>(REQUESTS);
+		for (Future<CurrentWeather> response : responses) {
+			results.add(response.get());
+		}
+		return results;
+	}
+}
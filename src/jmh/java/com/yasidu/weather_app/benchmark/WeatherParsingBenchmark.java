@@ -0,0 +1,87 @@
+package com.yasidu.weather_app.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.yasidu.weather_app.client.CurrentWeatherReader;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upstream response parsing on the {@code fetchWeatherForCity} path: the streaming reader used today against
+ * the former {@code JsonNode} tree to {@code LinkedHashMap} conversion, kept here as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherParsingBenchmark {
+
+	private byte[] payload;
+	private String payloadText;
+	private CurrentWeatherReader reader;
+
+	@Setup
+	public void setUp() {
+		payload = BenchmarkSupport.weatherPayload();
+		payloadText = new String(payload, StandardCharsets.UTF_8);
+		reader = new CurrentWeatherReader(BenchmarkSupport.OBJECT_MAPPER.getFactory());
+	}
+
+	@Benchmark
+	public CurrentWeather streamingRecord() throws IOException {
+		return reader.readCity("1248991", payload);
+	}
+
+	@Benchmark
+	public Map<String, Object> treeToMap() throws IOException {
+		JsonNode jsonNode = BenchmarkSupport.OBJECT_MAPPER.readTree(payloadText);
+		Map<String, Object> weatherData = new LinkedHashMap<>();
+		weatherData.put("cityCode", "1248991");
+		weatherData.put("name", jsonNode.path("name").asText("Unknown City"));
+
+		JsonNode weatherArr = jsonNode.path("weather");
+		if (weatherArr.isArray() && !weatherArr.isEmpty()) {
+			JsonNode weather = weatherArr.get(0);
+			weatherData.put("description", weather.path("description").asText("N/A"));
+			weatherData.put("staticStatus", weather.path("main").asText("N/A"));
+			weatherData.put("icon", weather.path("icon").asText(""));
+		}
+
+		JsonNode main = jsonNode.path("main");
+		weatherData.put("temp", main.path("temp").asDouble());
+		weatherData.put("feels_like", main.path("feels_like").asDouble());
+		weatherData.put("temp_min", main.path("temp_min").asDouble());
+		weatherData.put("temp_max", main.path("temp_max").asDouble());
+		weatherData.put("pressure", main.path("pressure").asInt());
+		weatherData.put("humidity", main.path("humidity").asInt());
+		weatherData.put("visibility", jsonNode.path("visibility").asInt());
+
+		JsonNode wind = jsonNode.path("wind");
+		weatherData.put("wind_speed", wind.path("speed").asDouble());
+		weatherData.put("wind_deg", wind.path("deg").asInt());
+
+		JsonNode sys = jsonNode.path("sys");
+		if (!sys.isMissingNode()) {
+			SimpleDateFormat sdf = new SimpleDateFormat("h:mm a");
+			sdf.setTimeZone(TimeZone.getDefault());
+			long sunriseUnix = sys.path("sunrise").asLong(0);
+			long sunsetUnix = sys.path("sunset").asLong(0);
+			if (sunriseUnix > 0) {
+				weatherData.put("sunrise", sdf.format(new Date(sunriseUnix * 1000)));
+			}
+			if (sunsetUnix > 0) {
+				weatherData.put("sunset", sdf.format(new Date(sunsetUnix * 1000)));
+			}
+		}
+
+		weatherData.put("cached", false);
+		return weatherData;
+	}
+}
@@ -0,0 +1,80 @@
+package com.yasidu.weather_app.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.dto.CurrentWeather;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in for a shared store inside one JVM, for local runs and tests. Instances built on the same
+ * {@link Backend} behave like application instances sharing one store.
+ */
+public class InMemorySharedWeatherStore implements SharedWeatherStore {
+
+	private final Backend backend;
+	private final Duration maxReuseAge;
+
+	public InMemorySharedWeatherStore(Backend backend, Duration maxReuseAge) {
+		this.backend = backend;
+		this.maxReuseAge = maxReuseAge;
+	}
+
+	@Override
+	public Map<String, CurrentWeather> findRecent(Collection<String> cityCodes) {
+		long fetchedAfter = System.currentTimeMillis() - maxReuseAge.toMillis();
+		Map<String, CurrentWeather> recent = new HashMap<>();
+		backend.readings.getAllPresent(cityCodes).forEach((cityCode, weather) -> {
+			if (weather.fetchedAt() > fetchedAfter) {
+				recent.put(cityCode, weather);
+			}
+		});
+		return recent;
+	}
+
+	@Override
+	public void putAll(Collection<CurrentWeather> readings) {
+		readings.forEach(weather -> backend.readings.put(weather.cityCode(), weather));
+	}
+
+	@Override
+	public void invalidate(String cityCode) {
+		if (ALL_CITIES.equals(cityCode)) {
+			backend.readings.invalidateAll();
+		} else {
+			backend.readings.invalidate(cityCode);
+		}
+		for (Subscription subscription : backend.subscriptions) {
+			if (subscription.store() != this) {
+				subscription.listener().accept(cityCode);
+			}
+		}
+	}
+
+	@Override
+	public void onRemoteInvalidation(Consumer<String> listener) {
+		backend.subscriptions.add(new Subscription(this, listener));
+	}
+
+	private record Subscription(InMemorySharedWeatherStore store, Consumer<String> listener) {
+	}
+
+	/**
+	 * The shared part: stored readings and the instances listening for invalidations.
+	 */
+	public static class Backend {
+
+		private final Cache<String, CurrentWeather> readings;
+		private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+		public Backend(Duration timeToLive) {
+			this.readings = Caffeine.newBuilder().expireAfterWrite(timeToLive).build();
+		}
+	}
+}
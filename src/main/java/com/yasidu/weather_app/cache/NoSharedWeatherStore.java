@@ -0,0 +1,35 @@
+package com.yasidu.weather_app.cache;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Single-instance setup: every instance only has its local cache.
+ */
+public class NoSharedWeatherStore implements SharedWeatherStore {
+
+	@Override
+	public boolean isShared() {
+		return false;
+	}
+
+	@Override
+	public Map<String, CurrentWeather> findRecent(Collection<String> cityCodes) {
+		return Map.of();
+	}
+
+	@Override
+	public void putAll(Collection<CurrentWeather> readings) {
+	}
+
+	@Override
+	public void invalidate(String cityCode) {
+	}
+
+	@Override
+	public void onRemoteInvalidation(Consumer<String> listener) {
+	}
+}
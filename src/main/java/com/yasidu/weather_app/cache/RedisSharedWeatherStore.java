@@ -0,0 +1,170 @@
+package com.yasidu.weather_app.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Redis-backed shared store. Readings are kept as JSON strings under {@code keyPrefix + cityCode} with the
+ * {@code weatherCache} TTL, and invalidations go out over a pub/sub channel as {@code <instance id> <city code>},
+ * so an instance can skip its own messages.
+ */
+@Slf4j
+public class RedisSharedWeatherStore implements SharedWeatherStore {
+
+	private static final int DELETE_BATCH_SIZE = 500;
+
+	/**
+	 * Writes every record component, including the ones the API hides or renames, so a stored reading reads
+	 * back into an equal record.
+	 */
+	private static final ObjectMapper STORAGE_MAPPER = JsonMapper.builder()
+			.disable(MapperFeature.USE_ANNOTATIONS)
+			.build();
+
+	private final StringRedisTemplate redisTemplate;
+	private final RedisMessageListenerContainer listenerContainer;
+	private final String keyPrefix;
+	private final ChannelTopic invalidationChannel;
+	private final Duration timeToLive;
+	private final Duration maxReuseAge;
+	private final String instanceId = UUID.randomUUID().toString();
+
+	public RedisSharedWeatherStore(StringRedisTemplate redisTemplate,
+								   RedisMessageListenerContainer listenerContainer,
+								   String keyPrefix,
+								   String invalidationChannel,
+								   Duration timeToLive,
+								   Duration maxReuseAge) {
+		this.redisTemplate = redisTemplate;
+		this.listenerContainer = listenerContainer;
+		this.keyPrefix = keyPrefix;
+		this.invalidationChannel = new ChannelTopic(invalidationChannel);
+		this.timeToLive = timeToLive;
+		this.maxReuseAge = maxReuseAge;
+	}
+
+	@Override
+	public Map<String, CurrentWeather> findRecent(Collection<String> cityCodes) {
+		List<String> codes = List.copyOf(cityCodes);
+		List<String> values = redisTemplate.opsForValue().multiGet(codes.stream().map(this::key).toList());
+		if (values == null) {
+			return Map.of();
+		}
+
+		long fetchedAfter = System.currentTimeMillis() - maxReuseAge.toMillis();
+		Map<String, CurrentWeather> recent = new HashMap<>();
+		for (int i = 0; i < codes.size(); i++) {
+			CurrentWeather weather = values.get(i) != null ? read(values.get(i)) : null;
+			if (weather != null && weather.fetchedAt() > fetchedAfter) {
+				recent.put(codes.get(i), weather);
+			}
+		}
+		return recent;
+	}
+
+	/**
+	 * One pipelined round trip for all readings.
+	 */
+	@Override
+	public void putAll(Collection<CurrentWeather> readings) {
+		Expiration expiration = Expiration.from(timeToLive);
+		redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (CurrentWeather weather : readings) {
+				String json = write(weather);
+				if (json != null) {
+					connection.stringCommands().set(bytes(key(weather.cityCode())), bytes(json), expiration,
+							RedisStringCommands.SetOption.UPSERT);
+				}
+			}
+			return null;
+		});
+	}
+
+	@Override
+	public void invalidate(String cityCode) {
+		if (ALL_CITIES.equals(cityCode)) {
+			deleteAll();
+		} else {
+			redisTemplate.delete(key(cityCode));
+		}
+		redisTemplate.convertAndSend(invalidationChannel.getTopic(), instanceId + " " + cityCode);
+	}
+
+	@Override
+	public void onRemoteInvalidation(Consumer<String> listener) {
+		listenerContainer.addMessageListener((message, pattern) -> {
+			String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ", 2);
+			if (parts.length == 2 && !instanceId.equals(parts[0])) {
+				listener.accept(parts[1]);
+			}
+		}, invalidationChannel);
+	}
+
+	/**
+	 * Deletes by scanning the key prefix rather than with {@code KEYS}, which would block Redis.
+	 */
+	private void deleteAll() {
+		List<String> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+		try (Cursor<String> keys = redisTemplate.scan(
+				ScanOptions.scanOptions().match(keyPrefix + "*").count(DELETE_BATCH_SIZE).build())) {
+			while (keys.hasNext()) {
+				batch.add(keys.next());
+				if (batch.size() == DELETE_BATCH_SIZE) {
+					redisTemplate.delete(batch);
+					batch.clear();
+				}
+			}
+		}
+		if (!batch.isEmpty()) {
+			redisTemplate.delete(batch);
+		}
+	}
+
+	private String key(String cityCode) {
+		return keyPrefix + cityCode;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String write(CurrentWeather weather) {
+		try {
+			return STORAGE_MAPPER.writeValueAsString(weather);
+		} catch (JsonProcessingException e) {
+			log.error("Could not store weather for city {}: {}", weather.cityCode(), e.getMessage());
+			return null;
+		}
+	}
+
+	private static CurrentWeather read(String json) {
+		try {
+			return STORAGE_MAPPER.readValue(json, CurrentWeather.class);
+		} catch (JsonProcessingException e) {
+			log.warn("Ignoring unreadable shared weather entry: {}", e.getMessage());
+			return null;
+		}
+	}
+}
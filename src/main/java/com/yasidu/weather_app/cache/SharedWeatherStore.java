@@ -0,0 +1,49 @@
+package com.yasidu.weather_app.cache;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Shared second-level store behind every instance's local {@code weatherCache}, plus the channel the instances
+ * use to tell each other about evictions.
+ * <p>
+ * An instance that misses locally looks here before calling the upstream, so a reading fetched by one instance
+ * serves all of them. Lookups sit on the load path and should take a single round trip.
+ */
+public interface SharedWeatherStore {
+
+	/**
+	 * Evicts every city, as the city code of an invalidation.
+	 */
+	String ALL_CITIES = "*";
+
+	/**
+	 * Whether there is a shared tier at all; without one, nothing needs to be written or looked up.
+	 */
+	default boolean isShared() {
+		return true;
+	}
+
+	/**
+	 * Returns the stored readings among {@code cityCodes} that are recent enough to stand in for an upstream call.
+	 * Cities without one are missing from the result.
+	 */
+	Map<String, CurrentWeather> findRecent(Collection<String> cityCodes);
+
+	void putAll(Collection<CurrentWeather> readings);
+
+	/**
+	 * Removes {@code cityCode}, or everything for {@link #ALL_CITIES}, and tells the other instances to drop it
+	 * from their local caches too.
+	 */
+	void invalidate(String cityCode);
+
+	/**
+	 * Registers {@code listener} for invalidations sent by other instances. It receives a city code or
+	 * {@link #ALL_CITIES}.
+	 */
+	void onRemoteInvalidation(Consumer<String> listener);
+}
@@ -0,0 +1,167 @@
+package com.yasidu.weather_app.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.yasidu.weather_app.dto.CurrentWeather;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads OpenWeather current weather payloads token by token into {@link CurrentWeather}, without building
+ * an intermediate tree. Fields the app does not use are skipped.
+ */
+public class CurrentWeatherReader {
+
+	private final JsonFactory jsonFactory;
+
+	public CurrentWeatherReader(JsonFactory jsonFactory) {
+		this.jsonFactory = jsonFactory;
+	}
+
+	/**
+	 * Reads a {@code /weather} response.
+	 */
+	public CurrentWeather readCity(String cityCode, byte[] body) throws IOException {
+		try (JsonParser parser = jsonFactory.createParser(body)) {
+			expect(parser.nextToken(), JsonToken.START_OBJECT);
+			return readWeather(parser, cityCode);
+		}
+	}
+
+	/**
+	 * Reads a {@code /group} response, keyed by the city id of each entry.
+	 */
+	public Map<String, CurrentWeather> readGroup(byte[] body) throws IOException {
+		Map<String, CurrentWeather> byCityCode = new HashMap<>();
+		try (JsonParser parser = jsonFactory.createParser(body)) {
+			expect(parser.nextToken(), JsonToken.START_OBJECT);
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken value = parser.nextToken();
+				if ("list".equals(field) && value == JsonToken.START_ARRAY) {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						CurrentWeather weather = readWeather(parser, null);
+						byCityCode.put(weather.cityCode(), weather);
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		return byCityCode;
+	}
+
+	/**
+	 * Reads one city object. The parser must be on its {@code START_OBJECT}; it is left on the matching
+	 * {@code END_OBJECT}. When {@code cityCode} is null the object's {@code id} is used.
+	 */
+	private CurrentWeather readWeather(JsonParser parser, String cityCode) throws IOException {
+		String id = cityCode;
+		String name = "Unknown City";
+		String description = null;
+		String staticStatus = null;
+		String icon = null;
+		double temp = 0, feelsLike = 0, tempMin = 0, tempMax = 0, windSpeed = 0;
+		int pressure = 0, humidity = 0, visibility = 0, windDeg = 0;
+		long sunrise = 0, sunset = 0;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+				case "id" -> {
+					if (cityCode == null) {
+						id = parser.getValueAsString();
+					}
+				}
+				case "name" -> name = parser.getValueAsString(name);
+				case "visibility" -> visibility = parser.getValueAsInt();
+				case "weather" -> {
+					// Only the first condition is used.
+					if (value == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.START_OBJECT) {
+						description = "N/A";
+						staticStatus = "N/A";
+						icon = "";
+						while (parser.nextToken() == JsonToken.FIELD_NAME) {
+							String key = parser.currentName();
+							parser.nextToken();
+							switch (key) {
+								case "description" -> description = parser.getValueAsString(description);
+								case "main" -> staticStatus = parser.getValueAsString(staticStatus);
+								case "icon" -> icon = parser.getValueAsString(icon);
+								default -> parser.skipChildren();
+							}
+						}
+						while (parser.nextToken() != JsonToken.END_ARRAY) {
+							parser.skipChildren();
+						}
+					} else {
+						parser.skipChildren();
+					}
+				}
+				case "main" -> {
+					if (value != JsonToken.START_OBJECT) {
+						parser.skipChildren();
+						break;
+					}
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String key = parser.currentName();
+						parser.nextToken();
+						switch (key) {
+							case "temp" -> temp = parser.getValueAsDouble();
+							case "feels_like" -> feelsLike = parser.getValueAsDouble();
+							case "temp_min" -> tempMin = parser.getValueAsDouble();
+							case "temp_max" -> tempMax = parser.getValueAsDouble();
+							case "pressure" -> pressure = parser.getValueAsInt();
+							case "humidity" -> humidity = parser.getValueAsInt();
+							default -> parser.skipChildren();
+						}
+					}
+				}
+				case "wind" -> {
+					if (value != JsonToken.START_OBJECT) {
+						parser.skipChildren();
+						break;
+					}
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String key = parser.currentName();
+						parser.nextToken();
+						switch (key) {
+							case "speed" -> windSpeed = parser.getValueAsDouble();
+							case "deg" -> windDeg = parser.getValueAsInt();
+							default -> parser.skipChildren();
+						}
+					}
+				}
+				case "sys" -> {
+					if (value != JsonToken.START_OBJECT) {
+						parser.skipChildren();
+						break;
+					}
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String key = parser.currentName();
+						parser.nextToken();
+						switch (key) {
+							case "sunrise" -> sunrise = parser.getValueAsLong();
+							case "sunset" -> sunset = parser.getValueAsLong();
+							default -> parser.skipChildren();
+						}
+					}
+				}
+				default -> parser.skipChildren();
+			}
+		}
+
+		return new CurrentWeather(id, name, description, staticStatus, icon, temp, feelsLike, tempMin, tempMax,
+				pressure, humidity, visibility, windSpeed, windDeg, sunrise, sunset, System.currentTimeMillis());
+	}
+
+	private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+		if (actual != expected) {
+			throw new IOException("Unexpected upstream payload: expected " + expected + " but got " + actual);
+		}
+	}
+}
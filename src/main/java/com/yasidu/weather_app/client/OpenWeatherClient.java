@@ -0,0 +1,327 @@
+package com.yasidu.weather_app.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Thin client for the OpenWeather current weather API.
+ * <p>
+ * Besides the single city {@code /weather} call it exposes the multi-ID {@code /group} call, which returns
+ * up to {@link #MAX_GROUP_SIZE} cities per request. Both come in a blocking and a non-blocking flavour; the
+ * non-blocking one holds no thread while the request is in flight and reports upstream error statuses with
+ * the same exceptions {@link RestTemplate} throws.
+ * <p>
+ * Every call goes through the upstream's circuit breaker and bulkhead. While the breaker is open, or once the
+ * bulkhead's limit of in-flight calls is reached, calls fail at once without touching the network; see
+ * {@link #isRejected}.
+ * <p>
+ * Calls that reach the network are timed as {@code weather.upstream.requests}, tagged with the endpoint and the
+ * response status, or {@code IO_ERROR} or {@code CANCELLED} when there was none.
+ */
+@Slf4j
+@Component
+public class OpenWeatherClient {
+
+	public static final int MAX_GROUP_SIZE = 20;
+
+	private static final String CITY_ENDPOINT = "/weather";
+	private static final String GROUP_ENDPOINT = "/group";
+
+	private final RestTemplate restTemplate;
+	private final CloseableHttpAsyncClient asyncHttpClient;
+	private final CurrentWeatherReader reader;
+	private final CircuitBreaker circuitBreaker;
+	private final Bulkhead bulkhead;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${openweather.api.key}")
+	private String apiKey;
+
+	@Value("${openweather.api.base-url}")
+	private String baseUrl;
+
+	@Value("${openweather.api.units:metric}")
+	private String units;
+
+	public OpenWeatherClient(RestTemplate restTemplate,
+							 CloseableHttpAsyncClient asyncHttpClient,
+							 ObjectMapper objectMapper,
+							 CircuitBreaker circuitBreaker,
+							 Bulkhead bulkhead,
+							 MeterRegistry meterRegistry) {
+		this.restTemplate = restTemplate;
+		this.asyncHttpClient = asyncHttpClient;
+		this.reader = new CurrentWeatherReader(objectMapper.getFactory());
+		this.circuitBreaker = circuitBreaker;
+		this.bulkhead = bulkhead;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Returns whether {@code error} means the call never reached the upstream because its circuit breaker is open
+	 * or its bulkhead is full.
+	 */
+	public static boolean isRejected(Throwable error) {
+		return error instanceof CallNotPermittedException || error instanceof BulkheadFullException;
+	}
+
+	public CurrentWeather fetchCity(String cityCode) throws IOException {
+		return get(CITY_ENDPOINT, cityUrl(cityCode), body -> reader.readCity(cityCode, body));
+	}
+
+	public CompletableFuture<CurrentWeather> fetchCityAsync(String cityCode) {
+		return getAsync(CITY_ENDPOINT, cityUrl(cityCode), body -> reader.readCity(cityCode, body));
+	}
+
+	/**
+	 * Fetches up to {@link #MAX_GROUP_SIZE} cities in one request. Cities unknown to the upstream are
+	 * simply missing from the returned map.
+	 */
+	public Map<String, CurrentWeather> fetchGroup(List<String> cityCodes) throws IOException {
+		Map<String, CurrentWeather> byCityCode = get(GROUP_ENDPOINT, groupUrl(cityCodes), reader::readGroup);
+		log.debug("Group request for {} cities returned {}", cityCodes.size(), byCityCode.size());
+		return byCityCode;
+	}
+
+	public CompletableFuture<Map<String, CurrentWeather>> fetchGroupAsync(List<String> cityCodes) {
+		return getAsync(GROUP_ENDPOINT, groupUrl(cityCodes), reader::readGroup);
+	}
+
+	public static List<List<String>> partition(List<String> cityCodes) {
+		List<List<String>> chunks = new ArrayList<>((cityCodes.size() + MAX_GROUP_SIZE - 1) / MAX_GROUP_SIZE);
+		for (int from = 0; from < cityCodes.size(); from += MAX_GROUP_SIZE) {
+			chunks.add(cityCodes.subList(from, Math.min(from + MAX_GROUP_SIZE, cityCodes.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * City codes come from request paths, so each is encoded as a whole: a code holding {@code &}, {@code ,} or
+	 * a space stays one ID instead of changing the query.
+	 */
+	private URI cityUrl(String cityCode) {
+		return url(CITY_ENDPOINT, encode(cityCode));
+	}
+
+	private URI groupUrl(List<String> cityCodes) {
+		if (cityCodes.size() > MAX_GROUP_SIZE) {
+			throw new IllegalArgumentException("At most " + MAX_GROUP_SIZE + " city codes per group request");
+		}
+		List<String> ids = new ArrayList<>(cityCodes.size());
+		for (String cityCode : cityCodes) {
+			ids.add(encode(cityCode));
+		}
+		return url(GROUP_ENDPOINT, String.join(",", ids));
+	}
+
+	private URI url(String endpoint, String encodedIds) {
+		return URI.create(String.format("%s%s?id=%s&appid=%s&units=%s",
+				baseUrl, endpoint, encodedIds, encode(apiKey), encode(units)));
+	}
+
+	private static String encode(String value) {
+		return UriUtils.encode(value, StandardCharsets.UTF_8);
+	}
+
+	private <T> T get(String endpoint, URI url, BodyReader<T> bodyReader) throws IOException {
+		UpstreamCall call = acquire(endpoint);
+		try {
+			T value = bodyReader.read(restTemplate.getForObject(url, byte[].class));
+			call.complete(null);
+			return value;
+		} catch (IOException | RuntimeException e) {
+			call.complete(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * The request is built before the permits are taken, and a request the client refuses to start hands them
+	 * back at once. From then on they are released before the returned future completes with the response, so
+	 * work chained onto it can start another call, or as soon as the caller completes it first.
+	 */
+	private <T> CompletableFuture<T> getAsync(String endpoint, URI url, BodyReader<T> bodyReader) {
+		SimpleHttpRequest request = SimpleRequestBuilder.get(url)
+				.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.build();
+
+		UpstreamCall call;
+		try {
+			call = acquire(endpoint);
+		} catch (CallNotPermittedException | BulkheadFullException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<SimpleHttpResponse> exchange;
+		try {
+			exchange = execute(request, call, result, bodyReader);
+		} catch (RuntimeException e) {
+			call.complete(e);
+			return CompletableFuture.failedFuture(e);
+		}
+		result.whenComplete((value, error) -> {
+			call.complete(error);
+			// Release the connection when the caller gives up first, e.g. on its own timeout.
+			if (error != null) {
+				exchange.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	private <T> Future<SimpleHttpResponse> execute(SimpleHttpRequest request, UpstreamCall call,
+												   CompletableFuture<T> result, BodyReader<T> bodyReader) {
+		return asyncHttpClient.execute(request, new FutureCallback<>() {
+			@Override
+			public void completed(SimpleHttpResponse response) {
+				T value;
+				try {
+					value = bodyReader.read(body(response));
+				} catch (Exception e) {
+					failed(e);
+					return;
+				}
+				call.complete(null);
+				result.complete(value);
+			}
+
+			@Override
+			public void failed(Exception e) {
+				call.complete(e);
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void cancelled() {
+				result.cancel(false);
+			}
+		});
+	}
+
+	private static byte[] body(SimpleHttpResponse response) throws IOException {
+		byte[] body = response.getBodyBytes() != null ? response.getBodyBytes() : new byte[0];
+		HttpStatusCode status = HttpStatusCode.valueOf(response.getCode());
+		if (status.is5xxServerError()) {
+			throw HttpServerErrorException.create(status, response.getReasonPhrase(), HttpHeaders.EMPTY, body, null);
+		}
+		if (status.isError()) {
+			throw HttpClientErrorException.create(status, response.getReasonPhrase(), HttpHeaders.EMPTY, body, null);
+		}
+
+		Header contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+		if (contentEncoding != null && "gzip".equalsIgnoreCase(contentEncoding.getValue())) {
+			try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+				return in.readAllBytes();
+			}
+		}
+		return body;
+	}
+
+	/**
+	 * Takes a breaker permission, then a bulkhead slot. A full bulkhead hands the breaker permission back, so
+	 * rejected calls are not counted as upstream failures.
+	 */
+	private UpstreamCall acquire(String endpoint) {
+		circuitBreaker.acquirePermission();
+		if (!bulkhead.tryAcquirePermission()) {
+			circuitBreaker.releasePermission();
+			throw BulkheadFullException.createBulkheadFullException(bulkhead);
+		}
+		return new UpstreamCall(endpoint, circuitBreaker.getCurrentTimestamp());
+	}
+
+	/**
+	 * Successful calls are all answered with 200 by this API.
+	 */
+	private static String status(Throwable error) {
+		if (error == null) {
+			return "200";
+		}
+		if (error instanceof RestClientResponseException responseError) {
+			return String.valueOf(responseError.getStatusCode().value());
+		}
+		return error instanceof CancellationException ? "CANCELLED" : "IO_ERROR";
+	}
+
+	/**
+	 * One permitted upstream call, completed with its outcome; only the first completion counts.
+	 */
+	private final class UpstreamCall {
+
+		private final String endpoint;
+		private final long start;
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		private UpstreamCall(String endpoint, long start) {
+			this.endpoint = endpoint;
+			this.start = start;
+		}
+
+		/**
+		 * Frees the bulkhead slot last, so a free slot means the outcome is already recorded.
+		 */
+		void complete(Throwable error) {
+			if (!completed.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				long duration = circuitBreaker.getCurrentTimestamp() - start;
+				if (error == null) {
+					circuitBreaker.onSuccess(duration, circuitBreaker.getTimestampUnit());
+				} else {
+					circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(), error);
+				}
+				Timer.builder("weather.upstream.requests")
+						.description("OpenWeather calls that reached the network")
+						.tag("endpoint", endpoint)
+						.tag("status", status(error))
+						.register(meterRegistry)
+						.record(duration, circuitBreaker.getTimestampUnit());
+			} finally {
+				bulkhead.onComplete();
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface BodyReader<T> {
+		T read(byte[] body) throws IOException;
+	}
+}
@@ -1,32 +1,74 @@
 package com.yasidu.weather_app.config;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.service.impl.WeatherCacheLoader;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
-
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
 
+	public static final String WEATHER_CACHE = "weatherCache";
+	public static final String WEATHER_NOT_FOUND_CACHE = "weatherNotFoundCache";
+
+	/**
+	 * Per-city weather cache. Loading through the cache rather than {@code @Cacheable} gives single-flight
+	 * semantics: concurrent misses for one city wait on the same upstream call.
+	 * <p>
+	 * Entries older than {@code refresh-after-write} are still served, and the first read after it triggers a
+	 * background refresh. Only entries older than {@code expire-after-write} are dropped and have to be
+	 * loaded inline again.
+	 */
 	@Bean
-	public Caffeine<Object, Object> caffeineConfig() {
-		return Caffeine.newBuilder()
-				.expireAfterWrite(5, TimeUnit.MINUTES)
-				.maximumSize(100)
-				.recordStats();
+	public AsyncLoadingCache<String, CurrentWeather> weatherCache(WeatherCacheLoader loader,
+																  CacheProperties properties) {
+		return caffeine(properties.spec(WEATHER_CACHE)).buildAsync(loader);
+	}
+
+	/**
+	 * Negative cache of city codes the upstream answered with 404, so they are not requested again until the
+	 * entry expires. Kept apart from {@code weatherCache} so it can have a much shorter TTL.
+	 */
+	@Bean
+	public Cache<String, Boolean> weatherNotFoundCache(CacheProperties properties) {
+		return caffeine(properties.spec(WEATHER_NOT_FOUND_CACHE)).build();
 	}
 
+	/**
+	 * Exposes the two caches to {@code @CacheEvict} and the cache metrics; nothing is cached through
+	 * {@code @Cacheable}, so there are no other caches.
+	 */
 	@Bean
-	public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-		CaffeineCacheManager cacheManager =
-				new CaffeineCacheManager("weatherAllCitiesCache", "cityWeatherCache", "weatherCache");
-		cacheManager.setCaffeine(caffeine);
+	@SuppressWarnings("unchecked")
+	public CacheManager cacheManager(AsyncLoadingCache<String, CurrentWeather> weatherCache,
+									 Cache<String, Boolean> weatherNotFoundCache) {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		cacheManager.registerCustomCache(WEATHER_CACHE, (AsyncCache<Object, Object>) (AsyncCache<?, ?>) weatherCache);
+		cacheManager.registerCustomCache(WEATHER_NOT_FOUND_CACHE,
+				(Cache<Object, Object>) (Cache<?, ?>) weatherNotFoundCache);
 		return cacheManager;
 	}
 
-}
\ No newline at end of file
+	private static Caffeine<Object, Object> caffeine(CacheProperties.Spec spec) {
+		Caffeine<Object, Object> builder = Caffeine.newBuilder()
+				.maximumSize(spec.getMaximumSize())
+				.expireAfterWrite(spec.getExpireAfterWrite())
+				.recordStats();
+
+		if (spec.getRefreshAfterWrite() != null) {
+			builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+		}
+		return builder;
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.yasidu.weather_app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-cache Caffeine policies, keyed by cache name under {@code app.cache.specs}, and the shared second-level tier
+ * under {@code app.cache.l2}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+	private Map<String, Spec> specs = new LinkedHashMap<>();
+
+	private L2 l2 = new L2();
+
+	public Spec spec(String cacheName) {
+		return specs.getOrDefault(cacheName, new Spec());
+	}
+
+	@Data
+	public static class Spec {
+
+		/**
+		 * Maximum number of entries.
+		 */
+		private long maximumSize = 100;
+
+		/**
+		 * Hard TTL: entries older than this are dropped.
+		 */
+		private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+		/**
+		 * Soft TTL: entries older than this are still served but refreshed in the background.
+		 * Only applies to loading caches.
+		 */
+		private Duration refreshAfterWrite;
+	}
+
+	@Data
+	public static class L2 {
+
+		/**
+		 * {@code none}, {@code in-memory} (one JVM only, for local runs and tests) or {@code redis}.
+		 */
+		private String type = "none";
+
+		/**
+		 * Shared readings fetched less than this long ago are used instead of calling the upstream. Keep it below
+		 * the {@code weatherCache} refresh-after-write, or instances keep passing an old reading around.
+		 */
+		private Duration maxReuseAge = Duration.ofSeconds(150);
+
+		private String keyPrefix = "weather:city:";
+
+		private String invalidationChannel = "weather:invalidations";
+	}
+}
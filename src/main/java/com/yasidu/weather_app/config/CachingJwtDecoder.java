@@ -0,0 +1,72 @@
+package com.yasidu.weather_app.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Remembers tokens that {@code delegate} already verified, so a client sending the same token on every request
+ * pays for the signature check and validators once.
+ * <p>
+ * Entries are keyed by the SHA-256 of the token and expire with the token, or after {@code maxAge} if that comes
+ * first; {@code maxAge} bounds how long a token stays accepted after its signing key was withdrawn from the JWKS.
+ * Tokens that fail verification are not remembered.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+	private final JwtDecoder delegate;
+	private final Cache<String, Jwt> verifiedTokens;
+
+	public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maxAge) {
+		this.delegate = delegate;
+		this.verifiedTokens = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(Expiry.creating((String key, Jwt jwt) -> timeToLive(jwt, maxAge)))
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		String key = sha256(token);
+		Jwt jwt = verifiedTokens.getIfPresent(key);
+		if (jwt == null) {
+			// Concurrent first uses of a token each verify it; only the cache write is shared.
+			jwt = delegate.decode(token);
+			verifiedTokens.put(key, jwt);
+		}
+		return jwt;
+	}
+
+	Cache<String, Jwt> verifiedTokens() {
+		return verifiedTokens;
+	}
+
+	private static Duration timeToLive(Jwt jwt, Duration maxAge) {
+		Instant expiresAt = jwt.getExpiresAt();
+		if (expiresAt == null) {
+			return maxAge;
+		}
+		Duration remaining = Duration.between(Instant.now(), expiresAt);
+		return remaining.isNegative() ? Duration.ZERO : remaining.compareTo(maxAge) < 0 ? remaining : maxAge;
+	}
+
+	private static String sha256(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.yasidu.weather_app.config;
+
+import com.yasidu.weather_app.util.FanOutExecutor;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * HTTP clients used for the OpenWeather upstream: a blocking one behind {@link RestTemplate} and a non-blocking
+ * one for the async API. Each has a bounded connection pool with keep-alive, connect and read timeouts from
+ * {@code openweather.api.*}, and gzip.
+ */
+@Configuration
+public class HttpClientConfig {
+
+	@Bean(destroyMethod = "close")
+	public PoolingHttpClientConnectionManager openWeatherConnectionManager(
+			@Value("${openweather.api.pool.max-total:50}") int maxTotal,
+			@Value("${openweather.api.pool.max-per-route:20}") int maxPerRoute,
+			@Value("${openweather.api.connect-timeout:2000}") long connectTimeout,
+			@Value("${openweather.api.timeout:10000}") long readTimeout) {
+		return PoolingHttpClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxTotal)
+				.setMaxConnPerRoute(maxPerRoute)
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+						.setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(5))
+						.build())
+				.build();
+	}
+
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient openWeatherHttpClient(
+			PoolingHttpClientConnectionManager openWeatherConnectionManager,
+			@Value("${openweather.api.connect-timeout:2000}") long connectTimeout,
+			@Value("${openweather.api.timeout:10000}") long readTimeout,
+			@Value("${openweather.api.pool.keep-alive:30000}") long keepAlive) {
+		TimeValue maxKeepAlive = TimeValue.ofMilliseconds(keepAlive);
+
+		// Content compression is on by default: requests advertise gzip/deflate and responses are decoded.
+		return HttpClients.custom()
+				.setConnectionManager(openWeatherConnectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeout))
+						.setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+						.build())
+				.setKeepAliveStrategy((response, context) -> DefaultConnectionKeepAliveStrategy.INSTANCE
+						.getKeepAliveDuration(response, context).min(maxKeepAlive))
+				.evictExpiredConnections()
+				.evictIdleConnections(maxKeepAlive)
+				.build();
+	}
+
+	/**
+	 * A request made from a fan-out task waits for the response no longer than the task has left, so a slow
+	 * upstream frees the thread and the connection when the task times out rather than after the read timeout.
+	 */
+	@Bean
+	public RestTemplate restTemplate(CloseableHttpClient openWeatherHttpClient) {
+		return new RestTemplate(new HttpComponentsClientHttpRequestFactory(openWeatherHttpClient) {
+			@Override
+			protected RequestConfig mergeRequestConfig(RequestConfig clientConfig) {
+				RequestConfig config = super.mergeRequestConfig(clientConfig);
+				long remaining = FanOutExecutor.remainingTaskTimeMillis();
+				Timeout responseTimeout = config.getResponseTimeout();
+				if (remaining < 0 || (responseTimeout != null && responseTimeout.isEnabled()
+						&& responseTimeout.toMilliseconds() <= remaining)) {
+					return config;
+				}
+				// A zero timeout would mean no timeout at all.
+				return RequestConfig.copy(config)
+						.setResponseTimeout(Timeout.ofMilliseconds(Math.max(1, remaining)))
+						.build();
+			}
+		});
+	}
+
+	@Bean
+	public MeterBinder openWeatherConnectionPoolMetrics(PoolingHttpClientConnectionManager openWeatherConnectionManager) {
+		return new PoolingHttpClientConnectionManagerMetricsBinder(openWeatherConnectionManager, "openweather");
+	}
+
+	/**
+	 * Connection pool of the non-blocking client. Over TLS the protocol is negotiated with ALPN, so upstreams
+	 * that offer HTTP/2 multiplex requests over one connection; others fall back to pooled HTTP/1.1.
+	 */
+	@Bean(destroyMethod = "close")
+	public PoolingAsyncClientConnectionManager openWeatherAsyncConnectionManager(
+			@Value("${openweather.api.pool.max-total:50}") int maxTotal,
+			@Value("${openweather.api.pool.max-per-route:20}") int maxPerRoute,
+			@Value("${openweather.api.connect-timeout:2000}") long connectTimeout,
+			@Value("${openweather.api.timeout:10000}") long readTimeout) {
+		return PoolingAsyncClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxTotal)
+				.setMaxConnPerRoute(maxPerRoute)
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+						.setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(5))
+						.build())
+				.setDefaultTlsConfig(TlsConfig.custom()
+						.setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+						.build())
+				.build();
+	}
+
+	/**
+	 * Non-blocking client: requests wait on the I/O reactor rather than on a thread each. Unlike the classic
+	 * client it does not decode gzip itself; {@code OpenWeatherClient} asks for and decodes it.
+	 */
+	@Bean(destroyMethod = "close")
+	public CloseableHttpAsyncClient openWeatherAsyncHttpClient(
+			PoolingAsyncClientConnectionManager openWeatherAsyncConnectionManager,
+			@Value("${openweather.api.connect-timeout:2000}") long connectTimeout,
+			@Value("${openweather.api.timeout:10000}") long readTimeout,
+			@Value("${openweather.api.pool.keep-alive:30000}") long keepAlive) {
+		TimeValue maxKeepAlive = TimeValue.ofMilliseconds(keepAlive);
+
+		CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+				.setConnectionManager(openWeatherAsyncConnectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeout))
+						.setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+						.build())
+				.setKeepAliveStrategy((response, context) -> DefaultConnectionKeepAliveStrategy.INSTANCE
+						.getKeepAliveDuration(response, context).min(maxKeepAlive))
+				.evictExpiredConnections()
+				.evictIdleConnections(maxKeepAlive)
+				.build();
+		client.start();
+		return client;
+	}
+
+	@Bean
+	public MeterBinder openWeatherAsyncConnectionPoolMetrics(
+			PoolingAsyncClientConnectionManager openWeatherAsyncConnectionManager) {
+		return new PoolingHttpClientConnectionManagerMetricsBinder(openWeatherAsyncConnectionManager,
+				"openweather-async");
+	}
+}
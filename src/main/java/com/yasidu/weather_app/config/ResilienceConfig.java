@@ -0,0 +1,141 @@
+package com.yasidu.weather_app.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.util.DeadlineTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Circuit breaker and bulkhead for upstream calls, one named instance of each per upstream. Thresholds come from
+ * {@code openweather.api.circuit-breaker.*} and {@code openweather.api.bulkhead.*}.
+ */
+@Slf4j
+@Configuration
+public class ResilienceConfig {
+
+	public static final String OPENWEATHER = "openweather";
+
+	@Bean
+	public CircuitBreakerRegistry circuitBreakerRegistry(
+			@Value("${openweather.api.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+			@Value("${openweather.api.circuit-breaker.slow-call-duration-threshold:5000}") long slowCallDuration,
+			@Value("${openweather.api.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+			@Value("${openweather.api.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+			@Value("${openweather.api.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+			@Value("${openweather.api.circuit-breaker.wait-duration-in-open-state:30000}") long waitInOpenState,
+			@Value("${openweather.api.circuit-breaker.permitted-calls-in-half-open-state:3}") int halfOpenCalls) {
+		return CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+				.failureRateThreshold(failureRateThreshold)
+				.slowCallDurationThreshold(Duration.ofMillis(slowCallDuration))
+				.slowCallRateThreshold(slowCallRateThreshold)
+				.slidingWindowSize(slidingWindowSize)
+				.minimumNumberOfCalls(minimumNumberOfCalls)
+				.waitDurationInOpenState(Duration.ofMillis(waitInOpenState))
+				.permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+				.recordException(ResilienceConfig::isUpstreamFailure)
+				// Callers giving up on a request, or calls that never got a pooled connection, say nothing about
+				// the upstream's health.
+				.ignoreExceptions(CancellationException.class)
+				.ignoreException(ResilienceConfig::isConnectionLeaseTimeout)
+				.build());
+	}
+
+	/**
+	 * Defaults to the connection pools' per-route limit: there is one upstream host, and the blocking and the
+	 * non-blocking client share this bulkhead, so calls beyond what either pool can lease for it are rejected at
+	 * once instead of queueing for a connection.
+	 */
+	@Bean
+	public BulkheadRegistry bulkheadRegistry(
+			@Value("${openweather.api.bulkhead.max-concurrent-calls:${openweather.api.pool.max-per-route:20}}")
+			int maxConcurrentCalls,
+			@Value("${openweather.api.bulkhead.max-wait:0}") long maxWait) {
+		return BulkheadRegistry.of(BulkheadConfig.custom()
+				.maxConcurrentCalls(maxConcurrentCalls)
+				.maxWaitDuration(Duration.ofMillis(maxWait))
+				.build());
+	}
+
+	@Bean
+	public CircuitBreaker openWeatherCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+		return circuitBreakerRegistry.circuitBreaker(OPENWEATHER);
+	}
+
+	@Bean
+	public Bulkhead openWeatherBulkhead(BulkheadRegistry bulkheadRegistry) {
+		return bulkheadRegistry.bulkhead(OPENWEATHER);
+	}
+
+	/**
+	 * Breaker state, call outcomes and bulkhead usage under {@code resilience4j.*}, plus a
+	 * {@code weather.upstream.breaker.transitions} counter tagged with the breaker name and both states.
+	 */
+	@Bean
+	public MeterBinder resilienceMetrics(CircuitBreakerRegistry circuitBreakerRegistry,
+										 BulkheadRegistry bulkheadRegistry) {
+		return meterRegistry -> {
+			TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+			TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+
+			circuitBreakerRegistry.getAllCircuitBreakers()
+					.forEach(circuitBreaker -> countTransitions(circuitBreaker, meterRegistry));
+			circuitBreakerRegistry.getEventPublisher()
+					.onEntryAdded(event -> countTransitions(event.getAddedEntry(), meterRegistry));
+		};
+	}
+
+	private static void countTransitions(CircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+		circuitBreaker.getEventPublisher().onStateTransition(event -> {
+			CircuitBreaker.StateTransition transition = event.getStateTransition();
+			log.warn("Circuit breaker {} went from {} to {}", event.getCircuitBreakerName(),
+					transition.getFromState(), transition.getToState());
+			Counter.builder("weather.upstream.breaker.transitions")
+					.description("Circuit breaker state transitions")
+					.tag("name", event.getCircuitBreakerName())
+					.tag("from", transition.getFromState().name())
+					.tag("to", transition.getToState().name())
+					.register(meterRegistry)
+					.increment();
+		});
+	}
+
+	/**
+	 * Waiting too long for a pooled connection is local pressure: the blocking client reports it as a
+	 * {@link ConnectionRequestTimeoutException}, the non-blocking one as a {@link DeadlineTimeoutException}.
+	 */
+	private static boolean isConnectionLeaseTimeout(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConnectionRequestTimeoutException || cause instanceof DeadlineTimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A 4xx other than 429 is an answer about the request itself, e.g. an unknown city or a bad API key, and the
+	 * upstream is healthy; everything else counts against it.
+	 */
+	private static boolean isUpstreamFailure(Throwable error) {
+		return !(error instanceof HttpClientErrorException clientError)
+				|| clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+	}
+}
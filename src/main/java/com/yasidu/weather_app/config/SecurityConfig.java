@@ -1,23 +1,50 @@
 package com.yasidu.weather_app.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
@@ -25,32 +52,98 @@ public class SecurityConfig {
     @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
     private String issuerUri;
 
+    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+    private String jwkSetUri;
+
     @Value("${auth0.audience}")
     private String audience;
 
+    @Value("${auth0.jwks.cache-ttl:300000}")
+    private long jwksCacheTtl;
+
+    @Value("${auth0.jwks.refresh-ahead:60000}")
+    private long jwksRefreshAhead;
+
+    /**
+     * Scope a token needs for admin operations, such as reloading the city catalog from disk and re-warming the cache
+     * for every city.
+     */
+    @Value("${auth0.admin-scope:weather:admin}")
+    private String adminScope;
+
+    /**
+     * Weather reads that set their own {@code Cache-Control} from the cache entry. They complete asynchronously, and
+     * the default no-cache headers would already be on the response by the time their headers are written.
+     */
+    private static final RequestMatcher CONDITIONAL_WEATHER_READS = conditionalWeatherReads();
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
+                .headers(headers -> headers
+                        .cacheControl(HeadersConfigurer.CacheControlConfig::disable)
+                        .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                                new NegatedRequestMatcher(CONDITIONAL_WEATHER_READS), new CacheControlHeadersWriter()))
+                )
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/health", "/error").permitAll()  // Public endpoints
+                        .requestMatchers(HttpMethod.POST, "/api/v1/weather/cities/reload")
+                                .hasAuthority("SCOPE_" + adminScope)
                         .requestMatchers("/api/**").authenticated()  // All API requires JWT
                         .anyRequest().permitAll()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
-                        .jwt(jwt -> jwt.decoder(jwtDecoder()))
+                        .jwt(jwt -> jwt.decoder(jwtDecoder))
                 );
 
         return http.build();
     }
 
+    private static RequestMatcher conditionalWeatherReads() {
+        PathPatternRequestMatcher.Builder paths = PathPatternRequestMatcher.withDefaults();
+        return new OrRequestMatcher(
+                paths.matcher(HttpMethod.GET, "/api/v1/weather/cities/all-weather"),
+                new AndRequestMatcher(
+                        paths.matcher(HttpMethod.GET, "/api/v1/weather/{cityCode}"),
+                        new NegatedRequestMatcher(new OrRequestMatcher(
+                                paths.matcher("/api/v1/weather/cities"),
+                                paths.matcher("/api/v1/weather/stream")
+                        ))
+                )
+        );
+    }
+
+    /**
+     * Verified tokens are cached until they expire (see {@link CachingJwtDecoder}), so only the first request with a
+     * token pays for the signature check and validators.
+     */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        NimbusJwtDecoder jwtDecoder = JwtDecoders.fromIssuerLocation(issuerUri);
+    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${auth0.token-cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${auth0.token-cache.max-age:300000}") long maxAge) {
+        CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(verifyingJwtDecoder(jwkSource, issuerUri, audience),
+                maximumSize, Duration.ofMillis(maxAge));
+        CaffeineCacheMetrics.monitor(meterRegistry, jwtDecoder.verifiedTokens(), "verifiedJwtCache");
+        return jwtDecoder;
+    }
+
+    /**
+     * Verifies the signature against {@code jwkSource} and checks expiry, issuer and audience on every call.
+     */
+    public static JwtDecoder verifyingJwtDecoder(JWKSource<SecurityContext> jwkSource, String issuerUri,
+                                                 String audience) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // The claims are checked by the validators below.
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(processor);
 
         OAuth2TokenValidator<Jwt> audienceValidator = new AudienceValidator(audience);
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuerUri);
@@ -61,6 +154,39 @@ public class SecurityConfig {
         return jwtDecoder;
     }
 
+    /**
+     * Signing keys, cached for {@code auth0.jwks.cache-ttl} and fetched again in the background
+     * {@code auth0.jwks.refresh-ahead} before that, so requests never wait for a refresh. A key rotated in
+     * between is published by Auth0 ahead of use and picked up by the next refresh. Should the JWKS endpoint be
+     * down, the last keys stay in use. Closing the bean stops the background refresh.
+     */
+    @Bean
+    public JWKSource<SecurityContext> jwkSource() throws MalformedURLException {
+        return JWKSourceBuilder.<SecurityContext>create(new URL(jwkSetUri))
+                .cache(jwksCacheTtl, JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                .refreshAheadCache(jwksRefreshAhead, true)
+                .retrying(true)
+                .outageTolerant(true)
+                .build();
+    }
+
+    /**
+     * Loads the signing keys in the background once the application is up, so the first authenticated request
+     * does not fetch them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetchSigningKeys() throws MalformedURLException {
+        JWKSource<SecurityContext> jwkSource = jwkSource();
+        CompletableFuture.runAsync(() -> {
+            try {
+                int keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null).size();
+                log.info("Prefetched {} signing keys from {}", keys, jwkSetUri);
+            } catch (Exception e) {
+                log.warn("Could not prefetch signing keys from {}: {}", jwkSetUri, e.getMessage());
+            }
+        });
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,56 @@
+package com.yasidu.weather_app.config;
+
+import com.yasidu.weather_app.cache.InMemorySharedWeatherStore;
+import com.yasidu.weather_app.cache.NoSharedWeatherStore;
+import com.yasidu.weather_app.cache.RedisSharedWeatherStore;
+import com.yasidu.weather_app.cache.SharedWeatherStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * The shared tier behind {@code weatherCache}, chosen by {@code app.cache.l2.type}. Without one, every instance
+ * loads and evicts on its own.
+ */
+@Configuration
+public class SharedCacheConfig {
+
+	private static final String TYPE = "type";
+	private static final String PREFIX = "app.cache.l2";
+
+	@Bean
+	@ConditionalOnProperty(prefix = PREFIX, name = TYPE, havingValue = "none", matchIfMissing = true)
+	public SharedWeatherStore noSharedWeatherStore() {
+		return new NoSharedWeatherStore();
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = PREFIX, name = TYPE, havingValue = "in-memory")
+	public SharedWeatherStore inMemorySharedWeatherStore(CacheProperties properties) {
+		return new InMemorySharedWeatherStore(
+				new InMemorySharedWeatherStore.Backend(properties.spec(CacheConfig.WEATHER_CACHE).getExpireAfterWrite()),
+				properties.getL2().getMaxReuseAge());
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = PREFIX, name = TYPE, havingValue = "redis")
+	public RedisMessageListenerContainer weatherInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		return container;
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = PREFIX, name = TYPE, havingValue = "redis")
+	public SharedWeatherStore redisSharedWeatherStore(StringRedisTemplate redisTemplate,
+													  RedisMessageListenerContainer weatherInvalidationListenerContainer,
+													  CacheProperties properties) {
+		CacheProperties.L2 l2 = properties.getL2();
+		return new RedisSharedWeatherStore(redisTemplate, weatherInvalidationListenerContainer, l2.getKeyPrefix(),
+				l2.getInvalidationChannel(), properties.spec(CacheConfig.WEATHER_CACHE).getExpireAfterWrite(),
+				l2.getMaxReuseAge());
+	}
+}
@@ -0,0 +1,42 @@
+package com.yasidu.weather_app.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leaves Spring Boot's Redis auto-configuration out unless {@code app.cache.l2.type} is {@code redis}, so an
+ * instance without the shared tier neither creates a Redis client nor needs Redis on the classpath. Exclusions
+ * already set in {@code spring.autoconfigure.exclude} are kept.
+ */
+public class SharedCacheEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+	static final String EXCLUDE = "spring.autoconfigure.exclude";
+
+	static final List<String> REDIS_AUTO_CONFIGURATIONS = List.of(
+			"org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration",
+			"org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration",
+			"org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration");
+
+	private static final String PROPERTY_SOURCE = "sharedCacheAutoConfigurationExclusions";
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		if ("redis".equals(environment.getProperty("app.cache.l2.type"))) {
+			return;
+		}
+		List<String> exclude = new ArrayList<>(Binder.get(environment)
+				.bind(EXCLUDE, Bindable.listOf(String.class))
+				.orElse(List.of()));
+		REDIS_AUTO_CONFIGURATIONS.stream().filter(name -> !exclude.contains(name)).forEach(exclude::add);
+		environment.getPropertySources().addFirst(
+				new MapPropertySource(PROPERTY_SOURCE, Map.of(EXCLUDE, String.join(",", exclude))));
+	}
+}
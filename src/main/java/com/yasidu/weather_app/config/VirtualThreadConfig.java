@@ -0,0 +1,27 @@
+package com.yasidu.weather_app.config;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adjustments that only apply when requests run on virtual threads ({@code spring.threads.virtual.enabled}
+ * on Java 21+). Tomcat, {@code @Scheduled} and {@code FanOutExecutor} switch over on their own.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+	/**
+	 * Jackson recycles its parser and generator buffers per thread by default. Virtual threads are not reused,
+	 * so that cache never hits and every request would allocate fresh buffers; share one pool instead.
+	 */
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer sharedJacksonRecyclerPool() {
+		return builder -> builder.postConfigurer(objectMapper ->
+				objectMapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool()));
+	}
+}
@@ -0,0 +1,68 @@
+package com.yasidu.weather_app.controller;
+
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ETags and {@code Cache-Control} for weather responses, derived from the cached entries without serializing them.
+ * <p>
+ * Every upstream load creates a new {@link CurrentWeather} with its own {@code fetchedAt}, so the city code and
+ * that timestamp identify an entry. The tags are weak because {@code dataAgeSeconds} in the body keeps changing
+ * while the data itself does not. {@code max-age} is the time left until the entry is due for a refresh; the
+ * responses are authenticated, so they are only cacheable by the client itself.
+ */
+final class WeatherCacheHeaders {
+
+	private WeatherCacheHeaders() {
+	}
+
+	static String etag(CurrentWeather weather) {
+		return "W/\"" + weather.cityCode() + "-" + Long.toHexString(weather.fetchedAt()) + "\"";
+	}
+
+	/**
+	 * Covers the catalog data and fetch status of every city as well, so a catalog reload or a city that failed
+	 * to load changes the tag too.
+	 */
+	static String etag(List<CityWeatherView> views) {
+		long hash = views.size();
+		for (CityWeatherView view : views) {
+			hash = 31 * hash + Objects.hash(view.cityCode(), view.cityName(), view.staticStatus(), view.staticTemp(),
+					view.fetchStatus());
+			hash = 31 * hash + (view.weather() != null ? view.weather().fetchedAt() : 0);
+		}
+		return "W/\"" + Long.toHexString(hash) + "\"";
+	}
+
+	static CacheControl cacheControl(CurrentWeather weather, Duration freshFor) {
+		return CacheControl.maxAge(remaining(weather, freshFor)).cachePrivate();
+	}
+
+	/**
+	 * Fresh until the first of its cities is due for a refresh; not fresh at all while any city is missing or stale.
+	 */
+	static CacheControl cacheControl(List<CityWeatherView> views, Duration freshFor) {
+		if (!CityWeatherView.allOk(views)) {
+			return CacheControl.maxAge(Duration.ZERO).cachePrivate();
+		}
+		Duration maxAge = freshFor;
+		for (CityWeatherView view : views) {
+			Duration remaining = remaining(view.weather(), freshFor);
+			if (remaining.compareTo(maxAge) < 0) {
+				maxAge = remaining;
+			}
+		}
+		return CacheControl.maxAge(maxAge).cachePrivate();
+	}
+
+	private static Duration remaining(CurrentWeather weather, Duration freshFor) {
+		Duration age = Duration.ofMillis(System.currentTimeMillis() - weather.fetchedAt());
+		Duration remaining = freshFor.minus(age);
+		return remaining.isNegative() ? Duration.ZERO : remaining;
+	}
+}
@@ -1,19 +1,31 @@
 package com.yasidu.weather_app.controller;
 
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.CacheConfig;
+import com.yasidu.weather_app.config.CacheProperties;
 import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.exception.WeatherDataNotFoundException;
 import com.yasidu.weather_app.response.ApiResponse;
 import com.yasidu.weather_app.service.CitySyncService;
 import com.yasidu.weather_app.service.WeatherService;
+import com.yasidu.weather_app.service.WeatherStreamService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/v1/weather")
@@ -22,6 +34,8 @@ public class WeatherController {
 
 	private final WeatherService weatherService;
 	private final CitySyncService cityService;
+	private final WeatherStreamService weatherStreamService;
+	private final CacheProperties cacheProperties;
 
 	@GetMapping("/cities")
 	public ResponseEntity<ApiResponse<List<CityDto>>> getAllCities() {
@@ -46,9 +60,13 @@ public class WeatherController {
 	}
 
 	@GetMapping("/cities/search")
-	public ResponseEntity<ApiResponse<List<CityDto>>> searchCities(@RequestParam String name) {
+	public ResponseEntity<ApiResponse<List<CityDto>>> searchCities(
+			@RequestParam String name,
+			@RequestParam(defaultValue = "false") boolean prefix,
+			@RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "50") int size) {
 		try {
-			List<CityDto> cities = cityService.searchCities(name);
+			List<CityDto> cities = cityService.searchCities(name, prefix, page, size);
 			ApiResponse<List<CityDto>> response = new ApiResponse<>(
 					true,
 					cities.isEmpty() ? "No cities found matching: " + name : "Cities found successfully",
@@ -67,34 +85,21 @@ public class WeatherController {
 		}
 	}
 
-	@GetMapping("/{cityCode}")
-	public ResponseEntity<ApiResponse<Map<String, Object>>> getWeather(
-			@PathVariable String cityCode,
-			@AuthenticationPrincipal Jwt jwt) {
-
+	@PostMapping("/cities/reload")
+	public ResponseEntity<ApiResponse<String>> reloadCities() {
 		try {
-			Map<String, Object> weatherData = weatherService.fetchWeatherForCity(cityCode);
-			if (weatherData == null || weatherData.containsKey("error")) {
-				ApiResponse<Map<String, Object>> response = new ApiResponse<>(
-						false,
-						"Weather data not found for city code: " + cityCode,
-						null,
-						HttpStatus.NOT_FOUND.value()
-				);
-				return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-			}
-
-			ApiResponse<Map<String, Object>> response = new ApiResponse<>(
+			int count = cityService.reloadCities();
+			ApiResponse<String> response = new ApiResponse<>(
 					true,
-					"Weather data retrieved successfully",
-					weatherData,
+					"Cities reloaded successfully",
+					"Loaded " + count + " cities",
 					HttpStatus.OK.value()
 			);
 			return ResponseEntity.ok(response);
 		} catch (Exception e) {
-			ApiResponse<Map<String, Object>> response = new ApiResponse<>(
+			ApiResponse<String> response = new ApiResponse<>(
 					false,
-					"Error fetching weather data: " + e.getMessage(),
+					"Failed to reload cities: " + e.getMessage(),
 					null,
 					HttpStatus.INTERNAL_SERVER_ERROR.value()
 			);
@@ -102,26 +107,97 @@ public class WeatherController {
 		}
 	}
 
+	/**
+	 * Returns without holding the servlet thread; the response is written when the upstream answers.
+	 * <p>
+	 * Carries an ETag and {@code Cache-Control} from the cached entry. A request whose {@code If-None-Match}
+	 * still matches gets an empty 304, written by Spring MVC without serializing the body.
+	 */
+	@GetMapping("/{cityCode}")
+	public CompletableFuture<ResponseEntity<ApiResponse<CurrentWeather>>> getWeather(
+			@PathVariable String cityCode,
+			@AuthenticationPrincipal Jwt jwt) {
+
+		return weatherService.fetchWeatherForCityAsync(cityCode)
+				.thenApply(weatherData -> {
+					ApiResponse<CurrentWeather> response = new ApiResponse<>(
+							true,
+							"Weather data retrieved successfully",
+							weatherData,
+							HttpStatus.OK.value()
+					);
+					return ResponseEntity.ok()
+							.eTag(WeatherCacheHeaders.etag(weatherData))
+							.cacheControl(WeatherCacheHeaders.cacheControl(weatherData, freshFor()))
+							.body(response);
+				})
+				.exceptionally(error -> {
+					Throwable cause = unwrap(error);
+					if (cause instanceof WeatherDataNotFoundException) {
+						ApiResponse<CurrentWeather> response = new ApiResponse<>(
+								false,
+								"Weather data not found for city code: " + cityCode,
+								null,
+								HttpStatus.NOT_FOUND.value()
+						);
+						return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+					}
+					if (OpenWeatherClient.isRejected(cause)) {
+						ApiResponse<CurrentWeather> response = new ApiResponse<>(
+								false,
+								"Weather provider is temporarily unavailable, please try again later",
+								null,
+								HttpStatus.SERVICE_UNAVAILABLE.value()
+						);
+						return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+					}
+					ApiResponse<CurrentWeather> response = new ApiResponse<>(
+							false,
+							"Error fetching weather data: " + cause.getMessage(),
+							null,
+							HttpStatus.INTERNAL_SERVER_ERROR.value()
+					);
+					return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+				});
+	}
+
+	/**
+	 * Conditional like {@link #getWeather}; the ETag covers every city in the response.
+	 */
 	@GetMapping("/cities/all-weather")
-	public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAllCitiesWeather() {
-		try {
-			List<Map<String, Object>> weatherData = weatherService.fetchWeatherForAllCities();
-			ApiResponse<List<Map<String, Object>>> response = new ApiResponse<>(
-					true,
-					"Weather data for all cities retrieved successfully",
-					weatherData,
-					HttpStatus.OK.value()
-			);
-			return ResponseEntity.ok(response);
-		} catch (Exception e) {
-			ApiResponse<List<Map<String, Object>>> response = new ApiResponse<>(
-					false,
-					"Failed to fetch weather data: " + e.getMessage(),
-					null,
-					HttpStatus.INTERNAL_SERVER_ERROR.value()
-			);
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-		}
+	public CompletableFuture<ResponseEntity<ApiResponse<List<CityWeatherView>>>> getAllCitiesWeather() {
+		return weatherService.fetchWeatherForAllCitiesAsync()
+				.thenApply(weatherData -> {
+					ApiResponse<List<CityWeatherView>> response = new ApiResponse<>(
+							true,
+							"Weather data for all cities retrieved successfully",
+							weatherData,
+							HttpStatus.OK.value()
+					);
+					return ResponseEntity.ok()
+							.eTag(WeatherCacheHeaders.etag(weatherData))
+							.cacheControl(WeatherCacheHeaders.cacheControl(weatherData, freshFor()))
+							.body(response);
+				})
+				.exceptionally(error -> {
+					ApiResponse<List<CityWeatherView>> response = new ApiResponse<>(
+							false,
+							"Failed to fetch weather data: " + unwrap(error).getMessage(),
+							null,
+							HttpStatus.INTERNAL_SERVER_ERROR.value()
+					);
+					return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+				});
+	}
+
+	/**
+	 * Server-sent events with the current weather of a city, sent as {@code weather} whenever a refresh brings a
+	 * new reading for it. Limited to {@code cities} when given, otherwise every city. A {@code resync} event means
+	 * updates were dropped and the client should fetch {@code /cities/all-weather} again.
+	 */
+	@GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamWeather(@RequestParam(required = false) Set<String> cities) {
+		return weatherStreamService.subscribe(cities != null ? cities : Set.of());
 	}
 
 	@DeleteMapping("/cache/{cityCode}")
@@ -167,4 +243,16 @@ public class WeatherController {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * How long a {@code weatherCache} entry is served before it is refreshed.
+	 */
+	private Duration freshFor() {
+		CacheProperties.Spec spec = cacheProperties.spec(CacheConfig.WEATHER_CACHE);
+		return spec.getRefreshAfterWrite() != null ? spec.getRefreshAfterWrite() : spec.getExpireAfterWrite();
+	}
+
+	private static Throwable unwrap(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
+}
@@ -1,9 +1,9 @@
 package com.yasidu.weather_app.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
  * CityDto
@@ -15,21 +15,32 @@ import lombok.NoArgsConstructor;
  *   "Temp": "33.0",
  *   "Status": "Clouds"
  * }
+ * Immutable, as catalog snapshots hand the same instances to every reader. Other fields of an entry are ignored.
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class CityDto {
 
 	@JsonProperty("CityCode")
-	private String cityCode;
+	String cityCode;
 
 	@JsonProperty("CityName")
-	private String cityName;
+	String cityName;
 
 	@JsonProperty("Temp")
-	private String temp;
+	String temp;
 
 	@JsonProperty("Status")
-	private String status;
+	String status;
+
+	@JsonCreator
+	public CityDto(@JsonProperty("CityCode") String cityCode,
+				   @JsonProperty("CityName") String cityName,
+				   @JsonProperty("Temp") String temp,
+				   @JsonProperty("Status") String status) {
+		this.cityCode = cityCode;
+		this.cityName = cityName;
+		this.temp = temp;
+		this.status = status;
+	}
 }
@@ -0,0 +1,48 @@
+package com.yasidu.weather_app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.util.List;
+
+/**
+ * One city of the all-cities response: the static {@code cities.json} data for the city merged with its cached
+ * weather when the response is built.
+ * <p>
+ * The cached {@link CurrentWeather} is only referenced, never copied or modified, and the catalog strings are
+ * copied in, so a view can be shared by every caller of a cached all-cities list. The weather fields are written
+ * inline; {@code weather} is null when the city could not be fetched.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"cityCode", "cityName", "staticStatus", "staticTemp", "fetchStatus"})
+public record CityWeatherView(
+		String cityCode,
+		String cityName,
+		String staticStatus,
+		String staticTemp,
+		FetchStatus fetchStatus,
+		// The city's own code and static status take the place of the upstream ones.
+		@JsonUnwrapped @JsonIgnoreProperties({"cityCode", "staticStatus"}) CurrentWeather weather
+) {
+
+	public enum FetchStatus {
+		OK,
+		/**
+		 * Answered with an older value because the upstream call failed or timed out.
+		 */
+		STALE,
+		FAILED,
+		TIMEOUT
+	}
+
+	public static CityWeatherView of(CityDto city, CurrentWeather weather, FetchStatus fetchStatus) {
+		return new CityWeatherView(city.getCityCode(), city.getCityName(), city.getStatus(), city.getTemp(),
+				fetchStatus, weather);
+	}
+
+	public static boolean allOk(List<CityWeatherView> views) {
+		return views.stream().allMatch(view -> view.fetchStatus() == FetchStatus.OK);
+	}
+}
@@ -0,0 +1,73 @@
+package com.yasidu.weather_app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Current weather for one city, as cached in {@code weatherCache}.
+ * <p>
+ * Built straight from the upstream response and never modified afterwards, so one instance is shared by
+ * every reader. Sunrise, sunset and the data age are derived when the record is serialized.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"cityCode", "name", "description", "staticStatus", "icon", "temp", "feels_like", "temp_min",
+		"temp_max", "pressure", "humidity", "visibility", "wind_speed", "wind_deg", "sunrise", "sunset", "fetchedAt",
+		"dataAgeSeconds"})
+public record CurrentWeather(
+		String cityCode,
+		String name,
+		String description,
+		String staticStatus,
+		String icon,
+		double temp,
+		@JsonProperty("feels_like") double feelsLike,
+		@JsonProperty("temp_min") double tempMin,
+		@JsonProperty("temp_max") double tempMax,
+		int pressure,
+		int humidity,
+		int visibility,
+		@JsonProperty("wind_speed") double windSpeed,
+		@JsonProperty("wind_deg") int windDeg,
+		@JsonIgnore long sunriseEpochSecond,
+		@JsonIgnore long sunsetEpochSecond,
+		long fetchedAt
+) {
+
+	private static final DateTimeFormatter TIME_FORMAT =
+			DateTimeFormatter.ofPattern("h:mm a").withZone(ZoneId.systemDefault());
+
+	@JsonProperty("sunrise")
+	public String sunrise() {
+		return formatTime(sunriseEpochSecond);
+	}
+
+	@JsonProperty("sunset")
+	public String sunset() {
+		return formatTime(sunsetEpochSecond);
+	}
+
+	@JsonProperty("dataAgeSeconds")
+	public long dataAgeSeconds() {
+		return Math.max(0, (System.currentTimeMillis() - fetchedAt) / 1000);
+	}
+
+	/**
+	 * Whether {@code other} reports the same weather for the same city, whenever it was fetched.
+	 */
+	public boolean sameReadingAs(CurrentWeather other) {
+		return equals(new CurrentWeather(other.cityCode, other.name, other.description, other.staticStatus, other.icon,
+				other.temp, other.feelsLike, other.tempMin, other.tempMax, other.pressure, other.humidity,
+				other.visibility, other.windSpeed, other.windDeg, other.sunriseEpochSecond, other.sunsetEpochSecond,
+				fetchedAt));
+	}
+
+	private static String formatTime(long epochSecond) {
+		return epochSecond > 0 ? TIME_FORMAT.format(Instant.ofEpochSecond(epochSecond)) : null;
+	}
+}
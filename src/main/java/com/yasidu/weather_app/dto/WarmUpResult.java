@@ -0,0 +1,8 @@
+package com.yasidu.weather_app.dto;
+
+/**
+ * Outcome of warming a batch of cities. Cities the upstream does not know are neither refreshed nor failed: they
+ * fail the same way on every run, so only {@code failed} points at an upstream problem.
+ */
+public record WarmUpResult(int refreshed, int unknown, int failed) {
+}
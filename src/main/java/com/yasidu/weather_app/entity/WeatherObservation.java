@@ -0,0 +1,92 @@
+package com.yasidu.weather_app.entity;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One successful upstream reading for a city, as written by
+ * {@link com.yasidu.weather_app.service.impl.WeatherObservationLog}. Times are epoch values like in
+ * {@link CurrentWeather}, so a row reads back into an equal record.
+ */
+@Entity
+@Table(name = WeatherObservation.TABLE, indexes = @Index(name = "idx_weather_observation_city_fetched",
+		columnList = "city_code, fetched_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class WeatherObservation {
+
+	public static final String TABLE = "weather_observation";
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "city_code", nullable = false, length = 32)
+	private String cityCode;
+
+	@Column(name = "name")
+	private String name;
+
+	@Column(name = "description")
+	private String description;
+
+	@Column(name = "status", length = 64)
+	private String status;
+
+	@Column(name = "icon", length = 16)
+	private String icon;
+
+	@Column(name = "temp")
+	private double temp;
+
+	@Column(name = "feels_like")
+	private double feelsLike;
+
+	@Column(name = "temp_min")
+	private double tempMin;
+
+	@Column(name = "temp_max")
+	private double tempMax;
+
+	@Column(name = "pressure")
+	private int pressure;
+
+	@Column(name = "humidity")
+	private int humidity;
+
+	@Column(name = "visibility")
+	private int visibility;
+
+	@Column(name = "wind_speed")
+	private double windSpeed;
+
+	@Column(name = "wind_deg")
+	private int windDeg;
+
+	@Column(name = "sunrise")
+	private long sunrise;
+
+	@Column(name = "sunset")
+	private long sunset;
+
+	/**
+	 * Epoch milliseconds of the upstream answer.
+	 */
+	@Column(name = "fetched_at", nullable = false)
+	private long fetchedAt;
+
+	public CurrentWeather toCurrentWeather() {
+		return new CurrentWeather(cityCode, name, description, status, icon, temp, feelsLike, tempMin, tempMax,
+				pressure, humidity, visibility, windSpeed, windDeg, sunrise, sunset, fetchedAt);
+	}
+}
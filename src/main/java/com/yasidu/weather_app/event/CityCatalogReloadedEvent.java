@@ -0,0 +1,7 @@
+package com.yasidu.weather_app.event;
+
+/**
+ * Published after the city catalog has been replaced by a freshly loaded snapshot.
+ */
+public record CityCatalogReloadedEvent(int cityCount) {
+}
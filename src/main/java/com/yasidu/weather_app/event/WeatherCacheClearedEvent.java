@@ -0,0 +1,7 @@
+package com.yasidu.weather_app.event;
+
+/**
+ * Published after every entry of {@code weatherCache} has been evicted.
+ */
+public record WeatherCacheClearedEvent() {
+}
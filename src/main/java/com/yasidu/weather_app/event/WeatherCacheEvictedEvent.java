@@ -0,0 +1,7 @@
+package com.yasidu.weather_app.event;
+
+/**
+ * Published after the {@code weatherCache} entry of one city has been evicted on request.
+ */
+public record WeatherCacheEvictedEvent(String cityCode) {
+}
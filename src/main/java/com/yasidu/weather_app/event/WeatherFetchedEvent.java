@@ -0,0 +1,12 @@
+package com.yasidu.weather_app.event;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+
+import java.util.List;
+
+/**
+ * Published for every reading that came from the upstream, changed or not. Readings taken from the shared store
+ * were fetched by another instance and are not published again.
+ */
+public record WeatherFetchedEvent(List<CurrentWeather> readings) {
+}
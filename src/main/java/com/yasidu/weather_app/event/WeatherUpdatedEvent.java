@@ -0,0 +1,11 @@
+package com.yasidu.weather_app.event;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+
+import java.util.List;
+
+/**
+ * Published when an upstream load brought a reading that differs from the previous one for its city.
+ */
+public record WeatherUpdatedEvent(List<CurrentWeather> updates) {
+}
@@ -1,5 +1,7 @@
 package com.yasidu.weather_app.exception;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -81,6 +83,28 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
 	}
 
+	@ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+	public ResponseEntity<ErrorResponse> handleUpstreamRejected(RuntimeException ex) {
+		ErrorResponse response = new ErrorResponse(
+				HttpStatus.SERVICE_UNAVAILABLE.value(),
+				"Service Unavailable",
+				"The weather provider is temporarily unavailable. Please try again later.",
+				null
+		);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+	}
+
+	@ExceptionHandler(TooManySubscribersException.class)
+	public ResponseEntity<ErrorResponse> handleTooManySubscribers(TooManySubscribersException ex) {
+		ErrorResponse response = new ErrorResponse(
+				HttpStatus.SERVICE_UNAVAILABLE.value(),
+				"Service Unavailable",
+				"Too many clients are connected to the weather stream. Please try again later.",
+				null
+		);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+	}
+
 	@ExceptionHandler(RuntimeException.class)
 	public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
 		ErrorResponse response = new ErrorResponse(
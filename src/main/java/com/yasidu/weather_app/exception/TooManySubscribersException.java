@@ -0,0 +1,7 @@
+package com.yasidu.weather_app.exception;
+
+public class TooManySubscribersException extends RuntimeException {
+	public TooManySubscribersException(String message) {
+		super(message);
+	}
+}
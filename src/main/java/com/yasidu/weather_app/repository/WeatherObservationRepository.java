@@ -0,0 +1,27 @@
+package com.yasidu.weather_app.repository;
+
+import com.yasidu.weather_app.entity.WeatherObservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface WeatherObservationRepository extends JpaRepository<WeatherObservation, Long> {
+
+	/**
+	 * The newest observation of every city observed after {@code fetchedAfter}, in epoch milliseconds.
+	 */
+	@Query("""
+			select o from WeatherObservation o
+			where o.fetchedAt > :fetchedAfter
+			and o.fetchedAt = (select max(l.fetchedAt) from WeatherObservation l where l.cityCode = o.cityCode)""")
+	List<WeatherObservation> findLatestPerCity(@Param("fetchedAfter") long fetchedAfter);
+
+	@Modifying
+	@Transactional
+	@Query("delete from WeatherObservation o where o.fetchedAt < :fetchedBefore")
+	int deleteFetchedBefore(@Param("fetchedBefore") long fetchedBefore);
+}
@@ -0,0 +1,185 @@
+package com.yasidu.weather_app.scheduler;
+
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.dto.WarmUpResult;
+import com.yasidu.weather_app.event.CityCatalogReloadedEvent;
+import com.yasidu.weather_app.event.WeatherCacheClearedEvent;
+import com.yasidu.weather_app.service.CitySyncService;
+import com.yasidu.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps {@code weatherCache} populated for every configured city so user requests are served from cache.
+ * <p>
+ * Runs at startup, then on a fixed delay that should be shorter than the cache's refresh-after-write, and
+ * again right after the whole cache is cleared or the city catalog is reloaded. Group requests are paced to stay
+ * within the upstream quota.
+ * <p>
+ * Cities the upstream does not know are counted apart from failures, which only cover upstream errors.
+ * <p>
+ * A run takes minutes over a large catalog, so it runs on the warmer's own thread, and the pause between group
+ * requests is a scheduled start rather than a sleep: the shared scheduler that triggers it, and also sends the
+ * stream heartbeats, is never held.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.weather.warmer", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherCacheWarmer implements DisposableBean {
+
+	private final WeatherService weatherService;
+	private final CitySyncService citySyncService;
+	private final ThreadPoolTaskScheduler scheduler;
+	private final long requestIntervalMs;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final AtomicLong lastRunDurationMs = new AtomicLong();
+	private final AtomicLong lastRunFailures = new AtomicLong();
+	private final AtomicLong lastRunUnknown = new AtomicLong();
+	private final Counter failures;
+
+	public WeatherCacheWarmer(WeatherService weatherService,
+							  CitySyncService citySyncService,
+							  MeterRegistry meterRegistry,
+							  @Value("${app.weather.warmer.max-requests-per-minute:30}") int maxRequestsPerMinute) {
+		this.weatherService = weatherService;
+		this.citySyncService = citySyncService;
+		this.requestIntervalMs = TimeUnit.MINUTES.toMillis(1) / Math.max(1, maxRequestsPerMinute);
+
+		this.scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(1);
+		scheduler.setThreadNamePrefix("weather-warmer-");
+		scheduler.initialize();
+
+		this.failures = Counter.builder("weather.warmer.failures")
+				.description("Cities the warmer could not refresh")
+				.register(meterRegistry);
+		TimeGauge.builder("weather.warmer.last.duration", lastRunDurationMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+				.description("Duration of the last warm-up run")
+				.register(meterRegistry);
+		meterRegistry.gauge("weather.warmer.last.failures", lastRunFailures);
+		meterRegistry.gauge("weather.warmer.last.unknown", lastRunUnknown);
+	}
+
+	/**
+	 * Only starts a run on the warmer's thread; with a fixed delay between triggers, a run still going when the
+	 * next one is due makes it skip.
+	 */
+	@Scheduled(initialDelay = 0, fixedDelayString = "${app.weather.warmer.interval:270000}")
+	public void warmUp() {
+		if (!running.compareAndSet(false, true)) {
+			log.debug("Cache warm-up already running, skipping");
+			return;
+		}
+		try {
+			scheduler.execute(this::start);
+		} catch (TaskRejectedException e) {
+			// Shutting down.
+			running.set(false);
+		}
+	}
+
+	@EventListener
+	public void onCacheCleared(WeatherCacheClearedEvent event) {
+		warmUp();
+	}
+
+	@EventListener
+	public void onCityCatalogReloaded(CityCatalogReloadedEvent event) {
+		warmUp();
+	}
+
+	@Override
+	public void destroy() {
+		scheduler.destroy();
+	}
+
+	private void start() {
+		List<String> cityCodes;
+		try {
+			cityCodes = citySyncService.getAllCityWeather().stream().map(CityDto::getCityCode).toList();
+		} catch (Exception e) {
+			log.error("Cache warm-up could not read city list: {}", e.getMessage());
+			running.set(false);
+			return;
+		}
+
+		Run run = new Run(cityCodes);
+		if (run.chunks.isEmpty()) {
+			finish(run);
+		} else {
+			warmChunk(run, 0);
+		}
+	}
+
+	/**
+	 * Warms one chunk, then schedules the next for one request interval after this one started.
+	 */
+	private void warmChunk(Run run, int index) {
+		long startedAt = System.currentTimeMillis();
+		List<String> chunk = run.chunks.get(index);
+		try {
+			WarmUpResult result = weatherService.warmUpCities(chunk);
+			run.failed += result.failed();
+			run.unknown += result.unknown();
+		} catch (Exception e) {
+			log.error("Cache warm-up failed for {} cities: {}", chunk.size(), e.getMessage());
+			run.failed += chunk.size();
+		}
+
+		if (index + 1 < run.chunks.size()) {
+			try {
+				scheduler.schedule(() -> warmChunk(run, index + 1), Instant.ofEpochMilli(startedAt + requestIntervalMs));
+				return;
+			} catch (TaskRejectedException e) {
+				log.debug("Cache warm-up stopped after {} of {} chunks", index + 1, run.chunks.size());
+			}
+		}
+		finish(run);
+	}
+
+	private void finish(Run run) {
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - run.start);
+		lastRunDurationMs.set(duration);
+		lastRunFailures.set(run.failed);
+		lastRunUnknown.set(run.unknown);
+		failures.increment(run.failed);
+		log.info("Cache warm-up refreshed {} of {} cities in {} ms ({} failed, {} unknown to the upstream)",
+				run.cityCount - run.failed - run.unknown, run.cityCount, duration, run.failed, run.unknown);
+		running.set(false);
+	}
+
+	/**
+	 * State of one warm-up run, only touched by the warmer's thread.
+	 */
+	private static final class Run {
+
+		private final long start = System.nanoTime();
+		private final int cityCount;
+		private final List<List<String>> chunks;
+		private long failed;
+		private long unknown;
+
+		private Run(List<String> cityCodes) {
+			this.cityCount = cityCodes.size();
+			this.chunks = OpenWeatherClient.partition(cityCodes);
+		}
+	}
+}
@@ -6,5 +6,6 @@ import java.util.List;
 
 public interface CitySyncService {
 	List<CityDto> getAllCityWeather() throws IOException;
-	List<CityDto> searchCities(String name);
-}
\ No newline at end of file
+	List<CityDto> searchCities(String name, boolean prefix, int page, int size);
+	int reloadCities();
+}
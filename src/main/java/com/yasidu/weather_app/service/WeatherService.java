@@ -1,11 +1,18 @@
 package com.yasidu.weather_app.service;
 
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.dto.WarmUpResult;
+
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface WeatherService {
-	Map<String, Object> fetchWeatherForCity(String cityId);
+	CurrentWeather fetchWeatherForCity(String cityId);
+	CompletableFuture<CurrentWeather> fetchWeatherForCityAsync(String cityId);
 	void evictCityCache(String cityId);
 	void evictAllCache();
-	List<Map<String, Object>> fetchWeatherForAllCities();
+	List<CityWeatherView> fetchWeatherForAllCities();
+	CompletableFuture<List<CityWeatherView>> fetchWeatherForAllCitiesAsync();
+	WarmUpResult warmUpCities(List<String> cityIds);
 }
@@ -0,0 +1,9 @@
+package com.yasidu.weather_app.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+public interface WeatherStreamService {
+	SseEmitter subscribe(Set<String> cityCodes);
+}
@@ -0,0 +1,225 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.event.CityCatalogReloadedEvent;
+import com.yasidu.weather_app.exception.CityLoadException;
+import com.yasidu.weather_app.util.CitySearchIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The configured cities, shared by every service.
+ * <p>
+ * Readers get an immutable {@link Snapshot} without locking or copying. A reload, triggered explicitly or by
+ * a change to the catalog file when {@code app.cities.watch} is enabled, builds a complete new snapshot and
+ * swaps it in atomically; if loading fails the current snapshot stays in place.
+ * <p>
+ * With {@code app.cities.load-in-background}, the first load runs off the startup path and the application
+ * starts without waiting for it. Callers arriving before it finishes wait for it; if it failed, they get a
+ * {@link CityLoadException} until a reload succeeds.
+ */
+@Slf4j
+@Component
+public class CityCatalog implements DisposableBean {
+
+	private static final long WATCH_SETTLE_MS = 500;
+
+	private final CityCatalogReader reader;
+	private final ApplicationEventPublisher eventPublisher;
+	private final String location;
+	private final boolean watch;
+	private final boolean loadInBackground;
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.of(List.of()));
+	private final ReentrantLock reloadLock = new ReentrantLock();
+	private volatile Thread watcher;
+	/**
+	 * The first load while it runs in the background or after it failed; null once a load succeeded.
+	 */
+	private volatile CompletableFuture<Snapshot> initialLoad;
+
+	public CityCatalog(CityCatalogReader reader,
+					   ApplicationEventPublisher eventPublisher,
+					   @Value("${app.cities.file-path:cities.json}") String location,
+					   @Value("${app.cities.watch:false}") boolean watch,
+					   @Value("${app.cities.load-in-background:false}") boolean loadInBackground) {
+		this.reader = reader;
+		this.eventPublisher = eventPublisher;
+		this.location = location;
+		this.watch = watch;
+		this.loadInBackground = loadInBackground;
+	}
+
+	@PostConstruct
+	public void init() {
+		if (loadInBackground) {
+			CompletableFuture<Snapshot> load = new CompletableFuture<>();
+			initialLoad = load;
+			CompletableFuture.runAsync(() -> {
+				try {
+					load.complete(load());
+				} catch (RuntimeException e) {
+					load.completeExceptionally(e);
+				}
+			});
+		} else {
+			load();
+		}
+		if (watch) {
+			startWatcher();
+		}
+	}
+
+	public Snapshot snapshot() {
+		CompletableFuture<Snapshot> pending = initialLoad;
+		if (pending != null) {
+			try {
+				pending.join();
+			} catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException cause ? cause : e;
+			}
+		}
+		return snapshot.get();
+	}
+
+	/**
+	 * Re-reads the catalog file and publishes the result.
+	 *
+	 * @return the snapshot now in use
+	 * @throws CityLoadException if the file could not be read; the previous snapshot is kept
+	 */
+	public Snapshot reload() {
+		Snapshot loaded = load();
+		eventPublisher.publishEvent(new CityCatalogReloadedEvent(loaded.size()));
+		return loaded;
+	}
+
+	private Snapshot load() {
+		reloadLock.lock();
+		try {
+			log.info("Loading cities from: {}", location);
+			Snapshot loaded = Snapshot.of(reader.read(location));
+			snapshot.set(loaded);
+			initialLoad = null;
+			log.info("Loaded {} cities", loaded.size());
+			return loaded;
+		} catch (Exception e) {
+			log.error("Failed to load cities: {}", e.getMessage(), e);
+			throw new CityLoadException("Failed to load cities from " + location);
+		} finally {
+			reloadLock.unlock();
+		}
+	}
+
+	private void startWatcher() {
+		Path file;
+		try {
+			Resource resource = reader.resolve(location);
+			if (!resource.isFile()) {
+				log.warn("City catalog {} is not a file on disk, not watching it for changes", location);
+				return;
+			}
+			file = resource.getFile().toPath().toAbsolutePath();
+		} catch (IOException e) {
+			log.warn("Cannot watch city catalog {}: {}", location, e.getMessage());
+			return;
+		}
+
+		Thread thread = new Thread(() -> watch(file), "city-catalog-watcher");
+		thread.setDaemon(true);
+		thread.start();
+		watcher = thread;
+	}
+
+	private void watch(Path file) {
+		try (WatchService watchService = file.getFileSystem().newWatchService()) {
+			file.getParent().register(watchService,
+					StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			log.info("Watching {} for changes", file);
+
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = watchService.take();
+				boolean changed = key.pollEvents().stream()
+						.anyMatch(event -> file.getFileName().equals(event.context()));
+				key.reset();
+				if (!changed) {
+					continue;
+				}
+
+				// Editors and copy tools emit several events per write; wait for them to settle and reload once.
+				Thread.sleep(WATCH_SETTLE_MS);
+				for (WatchKey pending; (pending = watchService.poll()) != null; ) {
+					pending.pollEvents();
+					pending.reset();
+				}
+				try {
+					reload();
+				} catch (CityLoadException e) {
+					log.warn("Keeping the previous city catalog: {}", e.getMessage());
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			log.error("City catalog watcher stopped: {}", e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		Thread thread = watcher;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * An immutable view of the catalog: cities in file order, indexed by code and by name.
+	 */
+	public record Snapshot(List<CityDto> cities, Map<String, CityDto> byCode, CitySearchIndex searchIndex,
+						   Instant loadedAt) {
+
+		static Snapshot of(List<CityDto> cities) {
+			Map<String, CityDto> byCode = new HashMap<>(cities.size() * 4 / 3 + 1);
+			for (CityDto city : cities) {
+				if (city.getCityCode() != null) {
+					byCode.putIfAbsent(city.getCityCode(), city);
+				}
+			}
+			return new Snapshot(List.copyOf(cities), Map.copyOf(byCode), CitySearchIndex.build(cities),
+					Instant.now());
+		}
+
+		public CityDto find(String cityCode) {
+			return byCode.get(cityCode);
+		}
+
+		public List<String> cityCodes() {
+			return cities.stream().map(CityDto::getCityCode).toList();
+		}
+
+		public int size() {
+			return cities.size();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.yasidu.weather_app.dto.CityDto;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads city catalogs in the {@code cities.json} format in a single streaming pass.
+ * <p>
+ * Accepts either {@code {"List": [...]}} or a bare array, plain or gzip-compressed (detected from the
+ * content, not the file name). Only one city is materialized at a time, so memory use apart from the
+ * cities kept by the caller does not depend on the file size.
+ */
+@Component
+public class CityCatalogReader {
+
+	private static final int GZIP_MAGIC = 0x8b1f;
+
+	private final JsonFactory jsonFactory;
+	private final ObjectReader cityReader;
+	private final ResourceLoader resourceLoader;
+
+	public CityCatalogReader(ObjectMapper objectMapper, ResourceLoader resourceLoader) {
+		this.jsonFactory = objectMapper.getFactory();
+		this.cityReader = objectMapper.readerFor(CityDto.class);
+		this.resourceLoader = resourceLoader;
+	}
+
+	/**
+	 * Reads all cities from {@code location}, which is a classpath path unless it carries a resource prefix
+	 * such as {@code file:}.
+	 */
+	public List<CityDto> read(String location) throws IOException {
+		List<CityDto> cities = new ArrayList<>();
+		read(location, cities::add);
+		return cities;
+	}
+
+	public void read(String location, Consumer<CityDto> consumer) throws IOException {
+		try (InputStream inputStream = open(resolve(location));
+			 JsonParser parser = jsonFactory.createParser(inputStream)) {
+
+			JsonToken root = parser.nextToken();
+			if (root == JsonToken.START_OBJECT) {
+				if (!moveToList(parser)) {
+					throw new IOException("Invalid cities file format: missing \"List\" array");
+				}
+			} else if (root != JsonToken.START_ARRAY) {
+				throw new IOException("Invalid cities file format");
+			}
+
+			Map<String, String> canonical = new HashMap<>();
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				consumer.accept(readCity(parser, canonical));
+			}
+		}
+	}
+
+	Resource resolve(String location) {
+		return location.contains(":") ? resourceLoader.getResource(location) : new ClassPathResource(location);
+	}
+
+	private static InputStream open(Resource resource) throws IOException {
+		BufferedInputStream inputStream = new BufferedInputStream(resource.getInputStream());
+		inputStream.mark(2);
+		int magic = inputStream.read() | (inputStream.read() << 8);
+		inputStream.reset();
+		return magic == GZIP_MAGIC ? new GZIPInputStream(inputStream, 64 * 1024) : inputStream;
+	}
+
+	/**
+	 * Advances past the fields of the root object up to the start of its {@code List} array.
+	 */
+	private static boolean moveToList(JsonParser parser) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			if (parser.nextToken() == JsonToken.START_ARRAY && "List".equals(field)) {
+				return true;
+			}
+			parser.skipChildren();
+		}
+		return false;
+	}
+
+	/**
+	 * Binds the object at the parser's position with the field names {@link CityDto} declares.
+	 */
+	private CityDto readCity(JsonParser parser, Map<String, String> canonical) throws IOException {
+		CityDto city = cityReader.readValue(parser);
+		// Temperatures and statuses repeat across a large catalog; keep one instance of each value.
+		String temp = canonical(canonical, city.getTemp());
+		String status = canonical(canonical, city.getStatus());
+		return temp == city.getTemp() && status == city.getStatus()
+				? city : new CityDto(city.getCityCode(), city.getCityName(), temp, status);
+	}
+
+	private static String canonical(Map<String, String> canonical, String value) {
+		return value == null ? null : canonical.computeIfAbsent(value, v -> v);
+	}
+}
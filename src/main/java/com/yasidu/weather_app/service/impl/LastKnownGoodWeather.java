@@ -0,0 +1,55 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * The most recent successful upstream answer per city, kept well past the {@code weatherCache} TTL.
+ * <p>
+ * Consulted when an upstream call fails, so a city whose entry has already expired can still be answered with older
+ * data instead of an error. The age of the data shows in {@link CurrentWeather#dataAgeSeconds()}. Readings persisted
+ * by {@link WeatherObservationLog} are restored into it at startup.
+ * <p>
+ * An entry expires {@code max-age} after its reading was fetched, not after it was recorded here, so a restored
+ * reading is never served once it is older than that.
+ */
+@Component
+public class LastKnownGoodWeather {
+
+	private final Cache<String, CurrentWeather> weatherByCity;
+
+	public LastKnownGoodWeather(@Value("${app.weather.last-known-good.maximum-size:10000}") long maximumSize,
+								@Value("${app.weather.last-known-good.max-age:6h}") Duration maxAge) {
+		this.weatherByCity = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(Expiry.writing((String cityCode, CurrentWeather weather) -> remainingAge(weather, maxAge)))
+				.build();
+	}
+
+	public void record(CurrentWeather weather) {
+		weatherByCity.put(weather.cityCode(), weather);
+	}
+
+	/**
+	 * Records an older reading, e.g. one read back from the database, unless a newer one is already known.
+	 */
+	public void restore(CurrentWeather weather) {
+		weatherByCity.asMap().merge(weather.cityCode(), weather,
+				(current, restored) -> restored.fetchedAt() > current.fetchedAt() ? restored : current);
+	}
+
+	public CurrentWeather find(String cityCode) {
+		return weatherByCity.getIfPresent(cityCode);
+	}
+
+	private static Duration remainingAge(CurrentWeather weather, Duration maxAge) {
+		Duration remaining = maxAge.minusMillis(System.currentTimeMillis() - weather.fetchedAt());
+		return remaining.isNegative() ? Duration.ZERO : remaining;
+	}
+}
@@ -0,0 +1,69 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.yasidu.weather_app.cache.SharedWeatherStore;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.event.WeatherCacheClearedEvent;
+import com.yasidu.weather_app.event.WeatherCacheEvictedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries cache evictions between instances through the {@link SharedWeatherStore}: an eviction requested here
+ * also removes the shared reading and reaches the other instances, and theirs are applied to the local caches.
+ * <p>
+ * Evictions from other instances only drop local entries. The cache warmer is not restarted for them; their
+ * entries come back from the shared store, which the evicting instance refills.
+ */
+@Slf4j
+@Component
+public class SharedCacheInvalidator {
+
+	private final SharedWeatherStore sharedStore;
+	private final AsyncLoadingCache<String, CurrentWeather> weatherCache;
+	private final Cache<String, Boolean> weatherNotFoundCache;
+
+	public SharedCacheInvalidator(SharedWeatherStore sharedStore,
+								  AsyncLoadingCache<String, CurrentWeather> weatherCache,
+								  Cache<String, Boolean> weatherNotFoundCache) {
+		this.sharedStore = sharedStore;
+		this.weatherCache = weatherCache;
+		this.weatherNotFoundCache = weatherNotFoundCache;
+		sharedStore.onRemoteInvalidation(this::invalidateLocally);
+	}
+
+	@EventListener
+	public void onCityEvicted(WeatherCacheEvictedEvent event) {
+		invalidateShared(event.cityCode());
+	}
+
+	@EventListener
+	public void onCacheCleared(WeatherCacheClearedEvent event) {
+		invalidateShared(SharedWeatherStore.ALL_CITIES);
+	}
+
+	/**
+	 * The local eviction has happened either way; a failure here only leaves the other instances serving their
+	 * entries until they expire.
+	 */
+	private void invalidateShared(String cityCode) {
+		try {
+			sharedStore.invalidate(cityCode);
+		} catch (RuntimeException e) {
+			log.error("Could not pass eviction of {} on to other instances: {}", cityCode, e.getMessage());
+		}
+	}
+
+	void invalidateLocally(String cityCode) {
+		log.info("Evicting {} on request of another instance", cityCode);
+		if (SharedWeatherStore.ALL_CITIES.equals(cityCode)) {
+			weatherCache.synchronous().invalidateAll();
+			weatherNotFoundCache.invalidateAll();
+		} else {
+			weatherCache.synchronous().invalidate(cityCode);
+			weatherNotFoundCache.invalidate(cityCode);
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.yasidu.weather_app.cache.SharedWeatherStore;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.event.WeatherFetchedEvent;
+import com.yasidu.weather_app.event.WeatherUpdatedEvent;
+import com.yasidu.weather_app.exception.WeatherDataNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Loads {@code weatherCache} entries from OpenWeather.
+ * <p>
+ * Caffeine calls {@link #asyncLoad} once per missing key and hands the returned future to every caller
+ * asking for that key until it completes, so concurrent misses for the same city share one upstream call.
+ * Background refreshes go through {@link #asyncReload}, which keeps the stale entry when the upstream fails.
+ * Loads use the non-blocking client, so no thread waits while a request is in flight. Every successful load is
+ * also recorded in {@link LastKnownGoodWeather}, and cities whose reading changed are announced with a
+ * {@link WeatherUpdatedEvent}. Every reading fetched from the upstream is announced with a
+ * {@link WeatherFetchedEvent}.
+ * <p>
+ * With a {@link SharedWeatherStore}, recent readings stored by any instance are used before calling the upstream,
+ * and readings fetched here are stored for the others. The store is best effort: when it fails, loads go to the
+ * upstream as if there were none.
+ * <p>
+ * City codes the upstream does not know go into {@code weatherNotFoundCache} and fail without an upstream call
+ * until that entry expires. Any other failure is left uncached, so the next request tries again.
+ */
+@Slf4j
+@Component
+public class WeatherCacheLoader implements AsyncCacheLoader<String, CurrentWeather> {
+
+	private static final ThreadLocal<Boolean> LOAD_STARTED = new ThreadLocal<>();
+
+	private final OpenWeatherClient openWeatherClient;
+	private final LastKnownGoodWeather lastKnownGood;
+	private final Cache<String, Boolean> weatherNotFoundCache;
+	private final ApplicationEventPublisher eventPublisher;
+	private final SharedWeatherStore sharedStore;
+
+	public WeatherCacheLoader(OpenWeatherClient openWeatherClient,
+							  LastKnownGoodWeather lastKnownGood,
+							  Cache<String, Boolean> weatherNotFoundCache,
+							  ApplicationEventPublisher eventPublisher,
+							  SharedWeatherStore sharedStore) {
+		this.openWeatherClient = openWeatherClient;
+		this.lastKnownGood = lastKnownGood;
+		this.weatherNotFoundCache = weatherNotFoundCache;
+		this.eventPublisher = eventPublisher;
+		this.sharedStore = sharedStore;
+	}
+
+	@Override
+	public CompletableFuture<CurrentWeather> asyncLoad(String cityCode, Executor cacheExecutor) {
+		LOAD_STARTED.set(Boolean.TRUE);
+		if (isKnownMissing(cityCode)) {
+			return CompletableFuture.failedFuture(notFound(cityCode));
+		}
+		return load(cityCode, cacheExecutor);
+	}
+
+	@Override
+	public CompletableFuture<CurrentWeather> asyncReload(String cityCode, CurrentWeather oldValue,
+														 Executor cacheExecutor) {
+		// A failed refresh keeps the current entry until its hard TTL.
+		return load(cityCode, cacheExecutor);
+	}
+
+	/**
+	 * Returns whether the current thread started an upstream load since the last call, and resets the flag.
+	 * Caffeine invokes {@link #asyncLoad} on the thread that missed, so a caller that gets an unfinished
+	 * future without having started a load has joined another caller's request.
+	 */
+	boolean consumeLoadStarted() {
+		boolean started = LOAD_STARTED.get() != null;
+		LOAD_STARTED.remove();
+		return started;
+	}
+
+	CurrentWeather lastKnownGood(String cityCode) {
+		return lastKnownGood.find(cityCode);
+	}
+
+	/**
+	 * Returns whether the upstream recently answered 404 for {@code cityCode}.
+	 */
+	boolean isKnownMissing(String cityCode) {
+		return weatherNotFoundCache.getIfPresent(cityCode) != null;
+	}
+
+	/**
+	 * Failures complete the returned future exceptionally, which Caffeine never caches. Calls rejected by the
+	 * circuit breaker or bulkhead keep their exception so callers can tell them apart from upstream errors.
+	 * <p>
+	 * Caffeine calls the loader while holding a lock on the map bin of the key. Sending the request can wait on
+	 * the HTTP client's pool lock, which would pin a virtual thread and stall other keys in that bin, so it is
+	 * handed to the cache executor and the loader itself returns at once, as is the shared store lookup.
+	 */
+	private CompletableFuture<CurrentWeather> load(String cityCode, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+					CurrentWeather shared = findShared(List.of(cityCode)).get(cityCode);
+					return shared != null ? CompletableFuture.completedFuture(shared) : fetchAndShare(cityCode);
+				}, executor)
+				.thenCompose(Function.identity())
+				.thenApply(weather -> {
+					record(List.of(weather));
+					return weather;
+				})
+				.exceptionally(error -> {
+					Throwable cause = error instanceof CompletionException && error.getCause() != null
+							? error.getCause() : error;
+					if (cause instanceof HttpClientErrorException.NotFound) {
+						weatherNotFoundCache.put(cityCode, Boolean.TRUE);
+						log.info("City {} is unknown to the upstream", cityCode);
+						throw notFound(cityCode);
+					}
+					if (OpenWeatherClient.isRejected(cause)) {
+						log.warn("Upstream call for city {} rejected: {}", cityCode, cause.getMessage());
+					} else {
+						log.error("Error fetching weather for city {}: {}", cityCode, cause.getMessage());
+					}
+					throw cause instanceof RuntimeException runtimeException
+							? runtimeException : new CompletionException(cause);
+				});
+	}
+
+	private CompletableFuture<CurrentWeather> fetchAndShare(String cityCode) {
+		return openWeatherClient.fetchCityAsync(cityCode).thenApply(weather -> {
+			fetched(List.of(weather));
+			return weather;
+		});
+	}
+
+	private static WeatherDataNotFoundException notFound(String cityCode) {
+		return new WeatherDataNotFoundException("Weather data not found for city code: " + cityCode);
+	}
+
+	/**
+	 * Fetches up to {@link OpenWeatherClient#MAX_GROUP_SIZE} cities, the ones without a recent shared reading
+	 * with one group request. Cities missing from the answer are unknown to the upstream and go into the negative
+	 * cache.
+	 */
+	Map<String, CurrentWeather> loadGroup(List<String> cityCodes) throws IOException {
+		Map<String, CurrentWeather> shared = findShared(cityCodes);
+		record(shared.values());
+		List<String> missing = withoutShared(cityCodes, shared);
+		if (missing.isEmpty()) {
+			return shared;
+		}
+		Map<String, CurrentWeather> fetched = openWeatherClient.fetchGroup(missing);
+		recordGroup(missing, fetched);
+		return merge(shared, fetched);
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #loadGroup}. The shared store lookup runs on the common pool, Caffeine's
+	 * default cache executor, as it does for {@link #load}, so the caller only starts the work. A caller failing
+	 * the returned future, e.g. on its own timeout, fails the client's future as well, which cancels the upstream
+	 * exchange.
+	 */
+	CompletableFuture<Map<String, CurrentWeather>> loadGroupAsync(List<String> cityCodes) {
+		CompletableFuture<Map<String, CurrentWeather>> weatherByCity = new CompletableFuture<>();
+		CompletableFuture.runAsync(() -> {
+			if (weatherByCity.isDone()) {
+				return;
+			}
+			Map<String, CurrentWeather> shared = findShared(cityCodes);
+			record(shared.values());
+			List<String> missing = withoutShared(cityCodes, shared);
+			if (missing.isEmpty()) {
+				weatherByCity.complete(shared);
+				return;
+			}
+
+			CompletableFuture<Map<String, CurrentWeather>> fetched = openWeatherClient.fetchGroupAsync(missing);
+			fetched.whenComplete((found, error) -> {
+				if (error != null) {
+					weatherByCity.completeExceptionally(error);
+					return;
+				}
+				// Recorded first, so a caller sees the unknown cities in the negative cache once it has the result.
+				try {
+					recordGroup(missing, found);
+				} finally {
+					weatherByCity.complete(merge(shared, found));
+				}
+			});
+			weatherByCity.whenComplete((found, error) -> {
+				if (error != null) {
+					fetched.completeExceptionally(error);
+				}
+			});
+		}).exceptionally(error -> {
+			weatherByCity.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+					? error.getCause() : error);
+			return null;
+		});
+		return weatherByCity;
+	}
+
+	private Map<String, CurrentWeather> findShared(List<String> cityCodes) {
+		if (!sharedStore.isShared()) {
+			return Map.of();
+		}
+		try {
+			return sharedStore.findRecent(cityCodes);
+		} catch (RuntimeException e) {
+			log.warn("Shared weather store lookup failed, loading from the upstream: {}", e.getMessage());
+			return Map.of();
+		}
+	}
+
+	private void fetched(Collection<CurrentWeather> readings) {
+		if (readings.isEmpty()) {
+			return;
+		}
+		eventPublisher.publishEvent(new WeatherFetchedEvent(List.copyOf(readings)));
+		share(readings);
+	}
+
+	/**
+	 * Stores readings for the other instances without holding up the caller, which may be an HTTP client thread.
+	 */
+	private void share(Collection<CurrentWeather> readings) {
+		if (!sharedStore.isShared()) {
+			return;
+		}
+		List<CurrentWeather> toStore = List.copyOf(readings);
+		CompletableFuture.runAsync(() -> sharedStore.putAll(toStore))
+				.exceptionally(error -> {
+					log.warn("Could not store {} readings in the shared weather store: {}", toStore.size(),
+							error.getMessage());
+					return null;
+				});
+	}
+
+	private static List<String> withoutShared(List<String> cityCodes, Map<String, CurrentWeather> shared) {
+		return shared.isEmpty() ? cityCodes : cityCodes.stream().filter(code -> !shared.containsKey(code)).toList();
+	}
+
+	private static Map<String, CurrentWeather> merge(Map<String, CurrentWeather> shared,
+													 Map<String, CurrentWeather> fetched) {
+		if (shared.isEmpty()) {
+			return fetched;
+		}
+		Map<String, CurrentWeather> weatherByCity = new HashMap<>(shared);
+		weatherByCity.putAll(fetched);
+		return weatherByCity;
+	}
+
+	private void recordGroup(List<String> cityCodes, Map<String, CurrentWeather> weatherByCity) {
+		record(weatherByCity.values());
+		fetched(weatherByCity.values());
+		for (String cityCode : cityCodes) {
+			if (!weatherByCity.containsKey(cityCode)) {
+				weatherNotFoundCache.put(cityCode, Boolean.TRUE);
+			}
+		}
+	}
+
+	/**
+	 * Records fresh readings as last known good and publishes the ones that differ from the reading recorded
+	 * before. Most refreshes bring back what the upstream already said, and only a new {@code fetchedAt}.
+	 */
+	private void record(Collection<CurrentWeather> loaded) {
+		List<CurrentWeather> updates = new ArrayList<>(loaded.size());
+		for (CurrentWeather weather : loaded) {
+			CurrentWeather previous = lastKnownGood.find(weather.cityCode());
+			lastKnownGood.record(weather);
+			if (previous == null || !weather.sameReadingAs(previous)) {
+				updates.add(weather);
+			}
+		}
+		if (!updates.isEmpty()) {
+			eventPublisher.publishEvent(new WeatherUpdatedEvent(List.copyOf(updates)));
+		}
+	}
+}
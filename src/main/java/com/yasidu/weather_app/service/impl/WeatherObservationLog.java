@@ -0,0 +1,202 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.entity.WeatherObservation;
+import com.yasidu.weather_app.event.WeatherFetchedEvent;
+import com.yasidu.weather_app.repository.WeatherObservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persists every upstream reading as a {@link WeatherObservation} and restores {@link LastKnownGoodWeather} from
+ * them at startup, so a restarted instance can answer from older data while the upstream is unavailable.
+ * <p>
+ * Readings are queued and written behind the request by a single writer thread, so neither the request path nor
+ * the HTTP client callbacks ever wait on the database. Whatever queued up during one write goes out in the next
+ * as one JDBC batch; the entity uses an identity key, which keeps Hibernate from batching inserts, so the rows are
+ * written with plain JDBC. When the queue is full or a write fails, the readings are dropped and counted: the log
+ * is a fallback, not a record the application depends on.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.weather.observations", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherObservationLog implements DisposableBean {
+
+	private static final String INSERT = "insert into " + WeatherObservation.TABLE
+			+ " (city_code, name, description, status, icon, temp, feels_like, temp_min, temp_max, pressure,"
+			+ " humidity, visibility, wind_speed, wind_deg, sunrise, sunset, fetched_at)"
+			+ " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final WeatherObservationRepository repository;
+	private final JdbcTemplate jdbcTemplate;
+	private final LastKnownGoodWeather lastKnownGood;
+	private final int batchSize;
+	private final Duration restoreMaxAge;
+	private final Duration retention;
+
+	private final BlockingQueue<CurrentWeather> queue;
+	private final AtomicBoolean writing = new AtomicBoolean();
+	private final ThreadPoolTaskExecutor writer;
+
+	private final Counter written;
+	private final Counter dropped;
+
+	public WeatherObservationLog(WeatherObservationRepository repository,
+								 JdbcTemplate jdbcTemplate,
+								 LastKnownGoodWeather lastKnownGood,
+								 MeterRegistry meterRegistry,
+								 @Value("${app.weather.observations.queue-capacity:10000}") int queueCapacity,
+								 @Value("${app.weather.observations.batch-size:200}") int batchSize,
+								 @Value("${app.weather.last-known-good.max-age:6h}") Duration restoreMaxAge,
+								 @Value("${app.weather.observations.retention:7d}") Duration retention) {
+		this.repository = repository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.lastKnownGood = lastKnownGood;
+		this.batchSize = batchSize;
+		this.restoreMaxAge = restoreMaxAge;
+		this.retention = retention;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+		this.writer = new ThreadPoolTaskExecutor();
+		writer.setCorePoolSize(1);
+		writer.setMaxPoolSize(1);
+		writer.setThreadNamePrefix("weather-observations-");
+		writer.setWaitForTasksToCompleteOnShutdown(true);
+		writer.setAwaitTerminationSeconds(10);
+		writer.initialize();
+
+		Gauge.builder("weather.observations.queued", queue, BlockingQueue::size)
+				.description("Readings waiting to be written to the database")
+				.register(meterRegistry);
+		this.written = Counter.builder("weather.observations.written")
+				.description("Readings written to the database")
+				.register(meterRegistry);
+		this.dropped = Counter.builder("weather.observations.dropped")
+				.description("Readings not written because the queue was full or the write failed")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Called on the thread that completed the upstream load; only queues the readings.
+	 */
+	@EventListener
+	public void onWeatherFetched(WeatherFetchedEvent event) {
+		for (CurrentWeather weather : event.readings()) {
+			if (!queue.offer(weather)) {
+				dropped.increment();
+			}
+		}
+		if (writing.compareAndSet(false, true)) {
+			try {
+				writer.execute(this::drain);
+			} catch (TaskRejectedException e) {
+				// Shutting down; destroy() writes what is left.
+				writing.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Restores on the writer thread, so a slow or unavailable database holds up neither startup nor readiness.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		writer.execute(this::restoreLastKnownGood);
+	}
+
+	/**
+	 * Readings the instance fetched since it started are newer and are kept.
+	 */
+	void restoreLastKnownGood() {
+		try {
+			long fetchedAfter = System.currentTimeMillis() - restoreMaxAge.toMillis();
+			List<WeatherObservation> latest = repository.findLatestPerCity(fetchedAfter);
+			latest.forEach(observation -> lastKnownGood.restore(observation.toCurrentWeather()));
+			log.info("Restored last known good weather for {} cities", latest.size());
+		} catch (RuntimeException e) {
+			log.warn("Could not restore last known good weather: {}", e.getMessage());
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.weather.observations.purge-interval:3600000}")
+	public void purge() {
+		try {
+			int deleted = repository.deleteFetchedBefore(System.currentTimeMillis() - retention.toMillis());
+			log.debug("Purged {} weather observations older than {}", deleted, retention);
+		} catch (RuntimeException e) {
+			log.warn("Could not purge weather observations: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes what is still queued before the database goes away.
+	 */
+	@Override
+	public void destroy() {
+		writer.shutdown();
+		writeQueued();
+	}
+
+	private void drain() {
+		do {
+			writeQueued();
+			writing.set(false);
+			// A reading queued after the last batch but before the flag was cleared started no drain of its own.
+		} while (!queue.isEmpty() && writing.compareAndSet(false, true));
+	}
+
+	private void writeQueued() {
+		List<CurrentWeather> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+		while (queue.drainTo(batch, batchSize) > 0) {
+			write(batch);
+			batch.clear();
+		}
+	}
+
+	private void write(List<CurrentWeather> batch) {
+		try {
+			jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, weather) -> {
+				statement.setString(1, weather.cityCode());
+				statement.setString(2, weather.name());
+				statement.setString(3, weather.description());
+				statement.setString(4, weather.staticStatus());
+				statement.setString(5, weather.icon());
+				statement.setDouble(6, weather.temp());
+				statement.setDouble(7, weather.feelsLike());
+				statement.setDouble(8, weather.tempMin());
+				statement.setDouble(9, weather.tempMax());
+				statement.setInt(10, weather.pressure());
+				statement.setInt(11, weather.humidity());
+				statement.setInt(12, weather.visibility());
+				statement.setDouble(13, weather.windSpeed());
+				statement.setInt(14, weather.windDeg());
+				statement.setLong(15, weather.sunriseEpochSecond());
+				statement.setLong(16, weather.sunsetEpochSecond());
+				statement.setLong(17, weather.fetchedAt());
+			});
+			written.increment(batch.size());
+		} catch (RuntimeException e) {
+			dropped.increment(batch.size());
+			log.warn("Could not write {} weather observations: {}", batch.size(), e.getMessage());
+		}
+	}
+}
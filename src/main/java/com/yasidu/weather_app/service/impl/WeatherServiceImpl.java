@@ -1,180 +1,357 @@
 package com.yasidu.weather_app.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.yasidu.weather_app.client.OpenWeatherClient;
 import com.yasidu.weather_app.dto.CityDto;
-import com.yasidu.weather_app.exception.CityLoadException;
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.dto.WarmUpResult;
+import com.yasidu.weather_app.event.WeatherCacheClearedEvent;
+import com.yasidu.weather_app.event.WeatherCacheEvictedEvent;
+import com.yasidu.weather_app.exception.WeatherDataNotFoundException;
 import com.yasidu.weather_app.service.WeatherService;
-import jakarta.annotation.PostConstruct;
-import lombok.RequiredArgsConstructor;
+import com.yasidu.weather_app.util.FanOutExecutor;
+import com.yasidu.weather_app.util.FanOutResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.io.InputStream;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class WeatherServiceImpl implements WeatherService {
 
-	private final RestTemplate restTemplate;
-	private final ObjectMapper objectMapper;
+	private final FanOutExecutor fanOutExecutor;
+	private final AsyncLoadingCache<String, CurrentWeather> weatherCache;
+	private final WeatherCacheLoader weatherCacheLoader;
+	private final Counter coalescedLoads;
+	private final MeterRegistry meterRegistry;
+	private final ApplicationEventPublisher eventPublisher;
+	private final CityCatalog cityCatalog;
+
+	@Value("${app.weather.fan-out.per-city-timeout:3000}")
+	private long perCityTimeout;
+
+	@Value("${app.weather.fan-out.overall-timeout:8000}")
+	private long overallTimeout;
+
+	/**
+	 * Group requests the non-blocking path keeps in flight at once, as many as the blocking path has threads.
+	 */
+	@Value("${app.weather.fan-out.parallelism:16}")
+	private int maxBatchesInFlight;
+
+	public WeatherServiceImpl(FanOutExecutor fanOutExecutor,
+							  AsyncLoadingCache<String, CurrentWeather> weatherCache,
+							  WeatherCacheLoader weatherCacheLoader,
+							  MeterRegistry meterRegistry,
+							  ApplicationEventPublisher eventPublisher,
+							  CityCatalog cityCatalog) {
+		this.fanOutExecutor = fanOutExecutor;
+		this.weatherCache = weatherCache;
+		this.weatherCacheLoader = weatherCacheLoader;
+		this.coalescedLoads = Counter.builder("weather.cache.coalesced")
+				.description("Callers that joined an in-flight upstream load instead of starting their own")
+				.register(meterRegistry);
+		this.meterRegistry = meterRegistry;
+		this.eventPublisher = eventPublisher;
+		this.cityCatalog = cityCatalog;
+	}
 
-	@Value("${openweather.api.key}")
-	private String apiKey;
+	@Override
+	public CurrentWeather fetchWeatherForCity(String cityCode) {
+		try {
+			return fetchWeatherForCityAsync(cityCode).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
 
-	@Value("${openweather.api.base-url}")
-	private String baseUrl;
+	@Override
+	public CompletableFuture<CurrentWeather> fetchWeatherForCityAsync(String cityCode) {
+		CompletableFuture<CurrentWeather> weatherData = weatherCache.get(cityCode);
+		if (!weatherCacheLoader.consumeLoadStarted() && !weatherData.isDone()) {
+			coalescedLoads.increment();
+		}
+		// The future is shared with the cache and other callers; hand out a copy nobody else can complete.
+		return weatherData.copy().exceptionallyCompose(error -> {
+			Throwable cause = error instanceof CompletionException && error.getCause() != null
+					? error.getCause() : error;
+			// Upstream down, shedding calls or not yet known to be down: serve older data if there is any.
+			CurrentWeather lastKnown = isUnknownCity(cause) ? null : weatherCacheLoader.lastKnownGood(cityCode);
+			return lastKnown != null ? CompletableFuture.completedFuture(lastKnown) : CompletableFuture.failedFuture(cause);
+		});
+	}
+
+	/**
+	 * Assembled on every call from the per-city {@code weatherCache} entries, so it is exactly as fresh as they
+	 * are and follows their refreshes and evictions. Only cities without an entry are fetched upstream.
+	 * <p>
+	 * Timed as {@code weather.all-cities.aggregation}, tagged {@code partial} when any city could not be fetched.
+	 */
+	@Override
+	public List<CityWeatherView> fetchWeatherForAllCities() {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		List<CityDto> cities = cityCatalog.snapshot().cities();
+		Map<String, FanOutResult.Status> statuses = new HashMap<>();
+		Map<String, CurrentWeather> weatherByCity = fetchWeatherForCities(cityCodes(cities), statuses, true);
+		return recordAggregation(sample, toAllCitiesView(cities, weatherByCity, statuses));
+	}
 
-	@Value("${openweather.api.units:metric}")
-	private String units;
+	@Override
+	public CompletableFuture<List<CityWeatherView>> fetchWeatherForAllCitiesAsync() {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		List<CityDto> cities = cityCatalog.snapshot().cities();
+		Map<String, FanOutResult.Status> statuses = new HashMap<>();
+		return fetchWeatherForCitiesAsync(cityCodes(cities), statuses)
+				.thenApply(weatherByCity -> recordAggregation(sample, toAllCitiesView(cities, weatherByCity, statuses)));
+	}
 
-	@Value("${app.cities.file-path:cities.json}")
-	private String citiesFilePath;
+	private List<CityWeatherView> recordAggregation(Timer.Sample sample, List<CityWeatherView> views) {
+		sample.stop(Timer.builder("weather.all-cities.aggregation")
+				.description("Time to assemble the all-cities view, upstream fetches for missing cities included")
+				.tag("result", CityWeatherView.allOk(views) ? "complete" : "partial")
+				.register(meterRegistry));
+		return views;
+	}
 
-	private final List<CityDto> cities = new ArrayList<>();
+	/**
+	 * Merges the catalog data into one immutable view per city. The cached weather entries are referenced as they
+	 * are, so building the view never touches what other readers see.
+	 */
+	private static List<CityWeatherView> toAllCitiesView(List<CityDto> cities,
+														 Map<String, CurrentWeather> weatherByCity,
+														 Map<String, FanOutResult.Status> statuses) {
+		List<CityWeatherView> views = new ArrayList<>(cities.size());
+		for (CityDto city : cities) {
+			CurrentWeather weather = weatherByCity.get(city.getCityCode());
+			FanOutResult.Status status = statuses.get(city.getCityCode());
 
-	@Lazy
-	private WeatherService self;
+			if (weather != null) {
+				views.add(CityWeatherView.of(city, weather,
+						status != null ? CityWeatherView.FetchStatus.STALE : CityWeatherView.FetchStatus.OK));
+				continue;
+			}
 
-	@Autowired
-	public void setSelf(@Lazy WeatherService self){
-		this.self = self;
+			status = status != null ? status : FanOutResult.Status.FAILED;
+			log.error("Error fetching weather for {} ({}): {}", city.getCityName(), city.getCityCode(), status);
+			views.add(CityWeatherView.of(city, null, CityWeatherView.FetchStatus.valueOf(status.name())));
+		}
+		return List.copyOf(views);
 	}
 
-	@PostConstruct
-	public void loadCityCodes() {
-		try {
-			log.info("Loading city codes from file: {}", citiesFilePath);
-			ClassPathResource resource = new ClassPathResource(citiesFilePath);
-			try (InputStream inputStream = resource.getInputStream()) {
+	/**
+	 * Cities of failed batches have a status; cities known or found to be missing upstream have neither a status
+	 * nor a reading.
+	 */
+	@Override
+	public WarmUpResult warmUpCities(List<String> cityCodes) {
+		Map<String, FanOutResult.Status> statuses = new HashMap<>();
+		Map<String, CurrentWeather> weatherByCity = fetchWeatherForCities(cityCodes, statuses, false);
+		// Last-known-good values stand in for failed cities but were not refreshed.
+		weatherByCity.keySet().removeAll(statuses.keySet());
+		int cityCount = new HashSet<>(cityCodes).size();
+		return new WarmUpResult(weatherByCity.size(), cityCount - weatherByCity.size() - statuses.size(),
+				statuses.size());
+	}
 
-				JsonNode root = objectMapper.readTree(inputStream);
-				JsonNode listNode = root.has("List") ? root.get("List") : root;
+	/**
+	 * Resolves many cities at once: cached entries are used as-is unless {@code useCached} is false, the
+	 * rest are fetched through the upstream group endpoint in chunks of {@link OpenWeatherClient#MAX_GROUP_SIZE},
+	 * in parallel, and written back to {@code weatherCache} one entry per city. Cities that could not be
+	 * resolved are missing from the result and have their status recorded in {@code statuses}.
+	 */
+	private Map<String, CurrentWeather> fetchWeatherForCities(List<String> cityCodes,
+																	 Map<String, FanOutResult.Status> statuses,
+																	 boolean useCached) {
+		Map<String, CurrentWeather> weatherByCity = new HashMap<>();
+		List<String> missing = collectCached(cityCodes, weatherByCity, useCached);
+
+		List<FanOutResult<List<String>, Map<String, CurrentWeather>>> batches = fanOutExecutor.invokeAll(
+				OpenWeatherClient.partition(missing), this::fetchBatch,
+				perCityTimeout, overallTimeout);
+		return merge(batches, weatherByCity, statuses);
+	}
 
-				CityDto[] cityArray = objectMapper.readValue(listNode.toString(), CityDto[].class);
-				cities.clear();
-				cities.addAll(Arrays.asList(cityArray));
+	/**
+	 * Non-blocking counterpart of {@link #fetchWeatherForCities} for cached lookups: group requests run on the
+	 * async client, at most {@code maxBatchesInFlight} at a time and each bounded by the per-batch timeout from
+	 * when it starts, and the result completes once all of them are done or the overall timeout has passed,
+	 * whichever comes first. Batches not started by then count as timed out.
+	 */
+	private CompletableFuture<Map<String, CurrentWeather>> fetchWeatherForCitiesAsync(
+			List<String> cityCodes, Map<String, FanOutResult.Status> statuses) {
+		Map<String, CurrentWeather> weatherByCity = new HashMap<>();
+		List<List<String>> chunks = OpenWeatherClient.partition(collectCached(cityCodes, weatherByCity, true));
+		List<CompletableFuture<Map<String, CurrentWeather>>> futures = fetchBatchesAsync(chunks);
+
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+				// Failed batches are reported one by one below; only wait for them here.
+				.exceptionally(error -> null)
+				.completeOnTimeout(null, overallTimeout, TimeUnit.MILLISECONDS)
+				.thenApply(done -> {
+					List<FanOutResult<List<String>, Map<String, CurrentWeather>>> batches = new ArrayList<>(chunks.size());
+					for (int i = 0; i < chunks.size(); i++) {
+						batches.add(FanOutResult.of(chunks.get(i), futures.get(i)));
+					}
+					return merge(batches, weatherByCity, statuses);
+				});
+	}
 
-				log.info("Loaded {} cities", cities.size());
+	/**
+	 * Puts the cached entries for {@code cityCodes} into {@code weatherByCity} and returns the codes that still
+	 * have to be fetched. Codes the upstream recently answered with 404 are neither.
+	 */
+	private List<String> collectCached(List<String> cityCodes, Map<String, CurrentWeather> weatherByCity,
+									   boolean useCached) {
+		List<String> missing = new ArrayList<>();
+		for (String cityCode : cityCodes) {
+			CurrentWeather cached = useCached ? weatherCache.synchronous().getIfPresent(cityCode) : null;
+			if (cached != null) {
+				weatherByCity.put(cityCode, cached);
+			} else if (!weatherCacheLoader.isKnownMissing(cityCode)) {
+				missing.add(cityCode);
 			}
-		} catch (Exception e) {
-			log.error("Failed to load cities: {}", e.getMessage(), e);
-			throw new CityLoadException("Failed to load cities from source");
 		}
-
+		return missing;
 	}
 
-	@Override
-	@Cacheable(value = "weatherCache", key = "#cityCode")
-	public Map<String, Object> fetchWeatherForCity(String cityCode) {
-		try {
-			String url = String.format("%s/weather?id=%s&appid=%s&units=%s",
-					baseUrl, cityCode, apiKey, units);
-
-			String response = restTemplate.getForObject(url, String.class);
-			JsonNode jsonNode = objectMapper.readTree(response);
-			Map<String, Object> weatherData = new LinkedHashMap<>();
-			weatherData.put("cityCode", cityCode);
-			weatherData.put("name", jsonNode.path("name").asText("Unknown City"));
-
-			// Weather Description
-			JsonNode weatherArr = jsonNode.path("weather");
-			if (weatherArr.isArray() && !weatherArr.isEmpty()) {
-				JsonNode weather = weatherArr.get(0);
-				weatherData.put("description", weather.path("description").asText("N/A"));
-				weatherData.put("staticStatus", weather.path("main").asText("N/A"));
-				weatherData.put("icon", weather.path("icon").asText(""));
-			}
-
-			// Main Data
-			JsonNode main = jsonNode.path("main");
-			weatherData.put("temp", main.path("temp").asDouble());
-			weatherData.put("feels_like", main.path("feels_like").asDouble());
-			weatherData.put("temp_min", main.path("temp_min").asDouble());
-			weatherData.put("temp_max", main.path("temp_max").asDouble());
-			weatherData.put("pressure", main.path("pressure").asInt());
-			weatherData.put("humidity", main.path("humidity").asInt());
-
-			// Visibility
-			weatherData.put("visibility", jsonNode.path("visibility").asInt());
-
-			// Wind Data
-			JsonNode wind = jsonNode.path("wind");
-			weatherData.put("wind_speed", wind.path("speed").asDouble());
-			weatherData.put("wind_deg", wind.path("deg").asInt());
-
-			// Sunrise / Sunset
-			JsonNode sys = jsonNode.path("sys");
-			if (!sys.isMissingNode()) {
-				SimpleDateFormat sdf = new SimpleDateFormat("h:mm a");
-				sdf.setTimeZone(TimeZone.getDefault());
-
-				long sunriseUnix = sys.path("sunrise").asLong(0);
-				long sunsetUnix = sys.path("sunset").asLong(0);
-
-				if (sunriseUnix > 0) {
-					weatherData.put("sunrise", sdf.format(new Date(sunriseUnix * 1000)));
-				}
-				if (sunsetUnix > 0) {
-					weatherData.put("sunset", sdf.format(new Date(sunsetUnix * 1000)));
+	/**
+	 * Adds the cities of successful batches to {@code weatherByCity} and records a status for every city of a
+	 * failed one. Cities of a failed batch that have a last-known-good value get it as well, next to their status.
+	 */
+	private Map<String, CurrentWeather> merge(List<FanOutResult<List<String>, Map<String, CurrentWeather>>> batches,
+													 Map<String, CurrentWeather> weatherByCity,
+													 Map<String, FanOutResult.Status> statuses) {
+		for (FanOutResult<List<String>, Map<String, CurrentWeather>> batch : batches) {
+			if (batch.isOk()) {
+				weatherByCity.putAll(batch.value());
+			} else {
+				log.error("Group fetch for {} cities failed with {}: {}", batch.input().size(), batch.status(),
+						batch.error() != null ? batch.error().getMessage() : "no response");
+				boolean unknownCity = isUnknownCity(batch.error());
+				for (String cityCode : batch.input()) {
+					statuses.put(cityCode, batch.status());
+					CurrentWeather lastKnown = unknownCity ? null : weatherCacheLoader.lastKnownGood(cityCode);
+					if (lastKnown != null) {
+						weatherByCity.put(cityCode, lastKnown);
+					}
 				}
 			}
-
-			weatherData.put("cached", false);
-			return weatherData;
-
-		} catch (Exception e) {
-			log.error("Error fetching weather for city {}: {}", cityCode, e.getMessage());
-			return Map.of(
-					"cityCode", cityCode,
-					"error", "Failed to fetch weather data",
-					"message", e.getMessage()
-			);
 		}
+		return weatherByCity;
 	}
 
-	@Override
-	@Cacheable(value = "weatherAllCitiesCache")
-	public List<Map<String, Object>> fetchWeatherForAllCities() {
-		List<Map<String, Object>> allWeatherData = new ArrayList<>();
+	/**
+	 * The only failure that older data must not cover: the upstream does not know the city at all.
+	 */
+	private static boolean isUnknownCity(Throwable error) {
+		return error instanceof WeatherDataNotFoundException;
+	}
 
-		for (CityDto city : cities) {
-			try {
-				Map<String, Object> weatherData = self.fetchWeatherForCity(city.getCityCode());
+	private Map<String, CurrentWeather> fetchBatch(List<String> cityCodes) {
+		try {
+			Map<String, CurrentWeather> weatherByCity = weatherCacheLoader.loadGroup(cityCodes);
+			weatherCache.synchronous().putAll(weatherByCity);
+			return weatherByCity;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 
-				weatherData.put("cityName", city.getCityName());
-				weatherData.put("staticStatus", city.getStatus());
-				weatherData.put("staticTemp", city.getTemp());
+	/**
+	 * Returns one future per chunk, but starts only {@code maxBatchesInFlight} requests and the next one as each
+	 * completes: the bulkhead does not wait, so starting every chunk of a large catalog at once would get most of
+	 * them rejected. A future cancelled before its batch started skips it; one cancelled later cancels the request.
+	 */
+	private List<CompletableFuture<Map<String, CurrentWeather>>> fetchBatchesAsync(List<List<String>> chunks) {
+		List<CompletableFuture<Map<String, CurrentWeather>>> results = new ArrayList<>(chunks.size());
+		for (int i = 0; i < chunks.size(); i++) {
+			results.add(new CompletableFuture<>());
+		}
+		AtomicInteger next = new AtomicInteger();
+		for (int i = 0; i < Math.min(maxBatchesInFlight, chunks.size()); i++) {
+			startNextBatch(chunks, results, next);
+		}
+		return results;
+	}
 
-				if (!weatherData.containsKey("error")) {
-					allWeatherData.add(weatherData);
-				}
-			} catch (Exception e) {
-				log.error("Error fetching weather for {} ({}): {}", city.getCityName(), city.getCityCode(), e.getMessage());
+	private void startNextBatch(List<List<String>> chunks, List<CompletableFuture<Map<String, CurrentWeather>>> results,
+								AtomicInteger next) {
+		int index;
+		while ((index = next.getAndIncrement()) < chunks.size()) {
+			CompletableFuture<Map<String, CurrentWeather>> result = results.get(index);
+			if (result.isDone()) {
+				continue;
+			}
+			CompletableFuture<Map<String, CurrentWeather>> load = weatherCacheLoader.loadGroupAsync(chunks.get(index));
+			CompletableFuture<Map<String, CurrentWeather>> batch = cacheBatch(load);
+			if (batch.isDone()) {
+				// Served from the shared store or rejected at once; go on without growing the stack.
+				copy(batch, result);
+				continue;
 			}
+			result.whenComplete((value, error) -> {
+				if (result.isCancelled()) {
+					load.cancel(false);
+				}
+			});
+			batch.whenComplete((value, error) -> {
+				copy(batch, result);
+				startNextBatch(chunks, results, next);
+			});
+			return;
+		}
+	}
+
+	private static <T> void copy(CompletableFuture<T> from, CompletableFuture<T> to) {
+		try {
+			to.complete(from.join());
+		} catch (CancellationException | CompletionException e) {
+			to.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
 		}
-		return allWeatherData;
+	}
+
+	private CompletableFuture<Map<String, CurrentWeather>> cacheBatch(
+			CompletableFuture<Map<String, CurrentWeather>> load) {
+		return load.orTimeout(perCityTimeout, TimeUnit.MILLISECONDS)
+				.thenApply(weatherByCity -> {
+					weatherCache.synchronous().putAll(weatherByCity);
+					return weatherByCity;
+				});
+	}
+
+	private static List<String> cityCodes(List<CityDto> cities) {
+		return cities.stream().map(CityDto::getCityCode).toList();
 	}
 
 	@Override
-	@CacheEvict(value = "weatherCache", key = "#cityCode")
+	@CacheEvict(value = {"weatherCache", "weatherNotFoundCache"}, key = "#cityCode")
 	public void evictCityCache(String cityCode) {
 		log.info("Cache evicted for city: {}", cityCode);
+		eventPublisher.publishEvent(new WeatherCacheEvictedEvent(cityCode));
 	}
 
 	@Override
-	@CacheEvict(value = "weatherCache", allEntries = true)
+	@CacheEvict(value = {"weatherCache", "weatherNotFoundCache"}, allEntries = true, beforeInvocation = true)
 	public void evictAllCache() {
 		log.info("All weather cache cleared");
+		eventPublisher.publishEvent(new WeatherCacheClearedEvent());
 	}
 }
@@ -0,0 +1,400 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.event.WeatherUpdatedEvent;
+import com.yasidu.weather_app.exception.TooManySubscribersException;
+import com.yasidu.weather_app.service.WeatherStreamService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes new weather readings to clients connected to the weather stream.
+ * <p>
+ * Each reading is serialized once and handed to every subscriber of its city. A subscriber buffers at most one
+ * pending reading per city, so a client that reads slower than readings arrive only ever gets the newest one of
+ * each city. Once {@code max-pending-per-subscriber} cities are waiting, the buffer is dropped and the client gets a
+ * {@code resync} event telling it to fetch the full view again.
+ * <p>
+ * Readings are fanned out on a small pool of their own, so publishing never waits on the upstream callbacks. The
+ * writes themselves are blocking servlet writes, so each subscriber drains on a thread of its own, one drain at a
+ * time: a client that stops reading parks only its own thread once its socket buffer fills. A send still stuck after
+ * {@code send-timeout} gets the subscriber dropped. Its readings are discarded and the connection is completed once
+ * the write returns. Until then the stream keeps its slot, so stalled clients never hold more than
+ * {@code max-subscribers} threads.
+ */
+@Slf4j
+@Service
+public class WeatherStreamServiceImpl implements WeatherStreamService, DisposableBean {
+
+	static final String UPDATE_EVENT = "weather";
+	static final String RESYNC_EVENT = "resync";
+
+	private final ObjectMapper objectMapper;
+	private final AsyncLoadingCache<String, CurrentWeather> weatherCache;
+	private final ThreadPoolTaskExecutor dispatcher;
+	private final SimpleAsyncTaskExecutor senders;
+	private final int maxSubscribers;
+	private final int maxPending;
+	private final long timeout;
+	private final long sendTimeoutNanos;
+
+	private final Semaphore slots;
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final Set<Subscriber> allCitySubscribers = ConcurrentHashMap.newKeySet();
+	private final Map<String, Set<Subscriber>> subscribersByCity = new ConcurrentHashMap<>();
+
+	private final Counter coalesced;
+	private final Counter resyncs;
+	private final Counter stalled;
+
+	public WeatherStreamServiceImpl(ObjectMapper objectMapper,
+									AsyncLoadingCache<String, CurrentWeather> weatherCache,
+									MeterRegistry meterRegistry,
+									@Value("${app.weather.stream.max-subscribers:10000}") int maxSubscribers,
+									@Value("${app.weather.stream.max-pending-per-subscriber:1000}") int maxPending,
+									@Value("${app.weather.stream.dispatch-threads:4}") int dispatchThreads,
+									@Value("${app.weather.stream.timeout:1800000}") long timeout,
+									@Value("${app.weather.stream.send-timeout:10000}") long sendTimeout) {
+		this.objectMapper = objectMapper;
+		this.weatherCache = weatherCache;
+		this.maxSubscribers = maxSubscribers;
+		this.maxPending = maxPending;
+		this.timeout = timeout;
+		this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeout);
+		this.slots = new Semaphore(maxSubscribers);
+
+		this.dispatcher = new ThreadPoolTaskExecutor();
+		dispatcher.setCorePoolSize(dispatchThreads);
+		dispatcher.setMaxPoolSize(dispatchThreads);
+		dispatcher.setThreadNamePrefix("weather-stream-");
+		dispatcher.initialize();
+		this.senders = new SimpleAsyncTaskExecutor("weather-stream-send-");
+
+		Gauge.builder("weather.stream.subscribers", subscribers, Set::size)
+				.description("Clients connected to the weather stream")
+				.register(meterRegistry);
+		this.coalesced = Counter.builder("weather.stream.coalesced")
+				.description("Readings replaced by a newer one for the same city before they were sent")
+				.register(meterRegistry);
+		this.resyncs = Counter.builder("weather.stream.resyncs")
+				.description("Subscribers told to resync because too many readings were waiting for them")
+				.register(meterRegistry);
+		this.stalled = Counter.builder("weather.stream.stalled")
+				.description("Subscribers dropped because a send to them was stuck past the send timeout")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Subscribes to {@code cityCodes}, or to every city when empty. The cached readings of the listed cities are
+	 * sent right away, so the client does not wait for the next refresh to see them.
+	 */
+	@Override
+	public SseEmitter subscribe(Set<String> cityCodes) {
+		if (!slots.tryAcquire()) {
+			throw new TooManySubscribersException("Too many open weather streams: " + maxSubscribers);
+		}
+		SseEmitter emitter = newEmitter(timeout);
+		Subscriber subscriber = new Subscriber(emitter, Set.copyOf(cityCodes));
+		emitter.onCompletion(() -> unsubscribe(subscriber));
+		emitter.onTimeout(() -> unsubscribe(subscriber));
+		emitter.onError(error -> unsubscribe(subscriber));
+		register(subscriber);
+
+		for (String cityCode : subscriber.cityCodes) {
+			CurrentWeather cached = weatherCache.synchronous().getIfPresent(cityCode);
+			String json = cached != null ? serialize(cached) : null;
+			if (json != null) {
+				subscriber.offer(cityCode, json, cached.fetchedAt());
+			}
+		}
+		return emitter;
+	}
+
+	/**
+	 * Called on the thread that completed the upstream load, so the fan-out itself is handed to the dispatcher.
+	 */
+	@EventListener
+	public void onWeatherUpdated(WeatherUpdatedEvent event) {
+		if (!subscribers.isEmpty()) {
+			dispatcher.execute(() -> publish(event));
+		}
+	}
+
+	/**
+	 * Keeps idle connections from being closed by proxies, and finds clients that went away without closing.
+	 */
+	@Scheduled(fixedDelayString = "${app.weather.stream.heartbeat-interval:30000}",
+			initialDelayString = "${app.weather.stream.heartbeat-interval:30000}")
+	public void sendHeartbeats() {
+		subscribers.forEach(Subscriber::heartbeat);
+	}
+
+	/**
+	 * Drops subscribers whose current send has been stuck for longer than {@code send-timeout}.
+	 */
+	@Scheduled(fixedDelayString = "${app.weather.stream.send-timeout:10000}",
+			initialDelayString = "${app.weather.stream.send-timeout:10000}")
+	public void dropStalledSubscribers() {
+		long stuckSince = System.nanoTime() - sendTimeoutNanos;
+		subscribers.forEach(subscriber -> subscriber.dropIfSendingSince(stuckSince));
+	}
+
+	@Override
+	public void destroy() {
+		subscribers.forEach(Subscriber::shutdown);
+		dispatcher.shutdown();
+	}
+
+	/**
+	 * Overridden by tests that need a client which stops reading.
+	 */
+	SseEmitter newEmitter(long timeout) {
+		return new SseEmitter(timeout);
+	}
+
+	private void publish(WeatherUpdatedEvent event) {
+		for (CurrentWeather weather : event.updates()) {
+			Set<Subscriber> citySubscribers = subscribersByCity.get(weather.cityCode());
+			if (citySubscribers == null && allCitySubscribers.isEmpty()) {
+				continue;
+			}
+			String json = serialize(weather);
+			if (json == null) {
+				continue;
+			}
+			if (citySubscribers != null) {
+				citySubscribers.forEach(subscriber -> subscriber.offer(weather.cityCode(), json, weather.fetchedAt()));
+			}
+			allCitySubscribers.forEach(subscriber -> subscriber.offer(weather.cityCode(), json, weather.fetchedAt()));
+		}
+	}
+
+	private String serialize(CurrentWeather weather) {
+		try {
+			return objectMapper.writeValueAsString(weather);
+		} catch (JsonProcessingException e) {
+			log.error("Could not serialize weather for city {}: {}", weather.cityCode(), e.getMessage());
+			return null;
+		}
+	}
+
+	private void register(Subscriber subscriber) {
+		subscribers.add(subscriber);
+		if (subscriber.cityCodes.isEmpty()) {
+			allCitySubscribers.add(subscriber);
+			return;
+		}
+		for (String cityCode : subscriber.cityCodes) {
+			subscribersByCity.compute(cityCode, (key, citySubscribers) -> {
+				Set<Subscriber> updated = citySubscribers != null ? citySubscribers : ConcurrentHashMap.newKeySet();
+				updated.add(subscriber);
+				return updated;
+			});
+		}
+	}
+
+	private void unsubscribe(Subscriber subscriber) {
+		if (!subscribers.remove(subscriber)) {
+			return;
+		}
+		slots.release();
+		subscriber.close();
+		allCitySubscribers.remove(subscriber);
+		for (String cityCode : subscriber.cityCodes) {
+			subscribersByCity.computeIfPresent(cityCode, (key, citySubscribers) -> {
+				citySubscribers.remove(subscriber);
+				return citySubscribers.isEmpty() ? null : citySubscribers;
+			});
+		}
+	}
+
+	private record Pending(String json, long fetchedAt) {
+	}
+
+	private final class Subscriber {
+
+		private final SseEmitter emitter;
+		private final Set<String> cityCodes;
+
+		// Guarded by this.
+		private final Map<String, Pending> pending = new LinkedHashMap<>();
+		private boolean resyncDue;
+		private boolean heartbeatDue;
+		private boolean draining;
+		private boolean closed;
+		// Closed while a send was in flight; the drain completes the emitter once that send returns.
+		private boolean dropped;
+
+		// Written by the draining thread, read by the stall check; sendingSince is only meaningful while sender is set.
+		private volatile Thread sender;
+		private volatile long sendingSince;
+
+		private Subscriber(SseEmitter emitter, Set<String> cityCodes) {
+			this.emitter = emitter;
+			this.cityCodes = cityCodes;
+		}
+
+		void offer(String cityCode, String json, long fetchedAt) {
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				Pending waiting = pending.get(cityCode);
+				if (waiting != null) {
+					coalesced.increment();
+					if (waiting.fetchedAt() > fetchedAt) {
+						return;
+					}
+				} else if (pending.size() >= maxPending) {
+					pending.clear();
+					resyncDue = true;
+					resyncs.increment();
+					startDrain();
+					return;
+				}
+				pending.put(cityCode, new Pending(json, fetchedAt));
+				startDrain();
+			}
+		}
+
+		/**
+		 * Only needed while nothing else is being sent.
+		 */
+		synchronized void heartbeat() {
+			if (!draining && !closed) {
+				heartbeatDue = true;
+				startDrain();
+			}
+		}
+
+		synchronized void close() {
+			closed = true;
+			pending.clear();
+		}
+
+		void dropIfSendingSince(long stuckSince) {
+			Thread thread = sender;
+			if (thread == null || sendingSince - stuckSince > 0) {
+				return;
+			}
+			synchronized (this) {
+				if (closed || !draining) {
+					return;
+				}
+				closed = true;
+				dropped = true;
+				pending.clear();
+			}
+			stalled.increment();
+			log.debug("Dropping weather stream stuck on a send for over {} ms",
+					TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+			thread.interrupt();
+		}
+
+		/**
+		 * Completing the emitter waits for a send in flight, so a subscriber that is sending is left to its drain.
+		 */
+		void shutdown() {
+			synchronized (this) {
+				closed = true;
+				pending.clear();
+				if (draining) {
+					dropped = true;
+					return;
+				}
+			}
+			emitter.complete();
+		}
+
+		private void startDrain() {
+			if (!draining) {
+				draining = true;
+				senders.execute(this::drain);
+			}
+		}
+
+		/**
+		 * Sends everything pending with one flush, and repeats until nothing new arrived in the meantime.
+		 */
+		private void drain() {
+			try {
+				for (Set<ResponseBodyEmitter.DataWithMediaType> events = nextEvents(); events != null;
+					 events = nextEvents()) {
+					sendingSince = System.nanoTime();
+					sender = Thread.currentThread();
+					try {
+						emitter.send(events);
+					} finally {
+						sender = null;
+					}
+				}
+			} catch (IOException | IllegalStateException e) {
+				// The connection is gone; the container completes the emitter unless the stall check dropped it.
+				log.debug("Weather stream closed: {}", e.getMessage());
+				unsubscribe(this);
+			}
+			if (isDropped()) {
+				// Clears an interrupt from the stall check that arrived after the send it was meant for.
+				Thread.interrupted();
+				unsubscribe(this);
+				emitter.complete();
+			}
+		}
+
+		/**
+		 * The events to send next, or {@code null} once the subscriber is closed or has nothing left to send.
+		 */
+		private synchronized Set<ResponseBodyEmitter.DataWithMediaType> nextEvents() {
+			if (closed) {
+				return null;
+			}
+			Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+			if (resyncDue) {
+				events.addAll(SseEmitter.event().name(RESYNC_EVENT).data("{}", MediaType.APPLICATION_JSON).build());
+			}
+			for (Pending update : pending.values()) {
+				events.addAll(SseEmitter.event().name(UPDATE_EVENT).data(update.json(), MediaType.APPLICATION_JSON)
+						.build());
+			}
+			if (events.isEmpty() && heartbeatDue) {
+				events.addAll(SseEmitter.event().comment("keep-alive").build());
+			}
+			pending.clear();
+			resyncDue = false;
+			heartbeatDue = false;
+			if (events.isEmpty()) {
+				draining = false;
+				return null;
+			}
+			return events;
+		}
+
+		private synchronized boolean isDropped() {
+			return dropped;
+		}
+	}
+}
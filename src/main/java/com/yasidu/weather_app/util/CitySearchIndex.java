@@ -0,0 +1,212 @@
+package com.yasidu.weather_app.util;
+
+import com.yasidu.weather_app.dto.CityDto;
+
+import java.util.*;
+
+/**
+ * Immutable in-memory index over city names for substring and prefix search.
+ * <p>
+ * Names are lowercased once at build time. Substring queries of two characters are answered straight from
+ * bigram posting lists; longer queries intersect the posting lists of their trigrams and only verify the
+ * surviving candidates. Prefix queries binary-search an array of cities sorted by name. Results of substring
+ * queries keep the catalog order, results of prefix queries are in name order.
+ */
+public final class CitySearchIndex {
+
+	private static final int[] NO_MATCHES = new int[0];
+
+	private final List<CityDto> cities;
+	private final String[] names;
+	private final int[] byName;
+	private final Map<Long, int[]> postings;
+
+	private CitySearchIndex(List<CityDto> cities, String[] names, int[] byName, Map<Long, int[]> postings) {
+		this.cities = cities;
+		this.names = names;
+		this.byName = byName;
+		this.postings = postings;
+	}
+
+	public static CitySearchIndex build(List<CityDto> cities) {
+		List<CityDto> snapshot = List.copyOf(cities);
+		String[] names = new String[snapshot.size()];
+		Map<Long, IntList> lists = new HashMap<>();
+
+		for (int id = 0; id < names.length; id++) {
+			String cityName = snapshot.get(id).getCityName();
+			String name = cityName == null ? "" : cityName.toLowerCase(Locale.ROOT);
+			names[id] = name;
+			for (int length = 2; length <= 3; length++) {
+				for (int i = 0; i + length <= name.length(); i++) {
+					lists.computeIfAbsent(gram(name, i, length), key -> new IntList()).addOnce(id);
+				}
+			}
+		}
+
+		Map<Long, int[]> postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+		lists.forEach((gram, list) -> postings.put(gram, list.toArray()));
+
+		int[] byName = sortedByName(names);
+		return new CitySearchIndex(snapshot, names, byName, postings);
+	}
+
+	public int size() {
+		return cities.size();
+	}
+
+	/**
+	 * Cities whose name contains {@code query}, ignoring case, skipping the first {@code offset} matches.
+	 */
+	public List<CityDto> contains(String query, int offset, int limit) {
+		String term = normalize(query);
+		if (term.isEmpty()) {
+			return slice(offset, limit);
+		}
+		if (term.length() == 1) {
+			return scan(term, offset, limit);
+		}
+		if (term.length() == 2) {
+			int[] matches = postings.getOrDefault(gram(term, 0, 2), NO_MATCHES);
+			return page(matches, 0, matches.length, offset, limit);
+		}
+		return intersect(term, offset, limit);
+	}
+
+	/**
+	 * Cities whose name starts with {@code query}, ignoring case, in name order.
+	 */
+	public List<CityDto> startsWith(String query, int offset, int limit) {
+		String term = normalize(query);
+		int from = lowerBound(term);
+		int to = from;
+		while (to < byName.length && names[byName[to]].startsWith(term)) {
+			to++;
+			if (to - from >= offset + limit) {
+				break;
+			}
+		}
+		return page(byName, from, to, offset, limit);
+	}
+
+	private List<CityDto> intersect(String term, int offset, int limit) {
+		List<int[]> lists = new ArrayList<>();
+		for (int i = 0; i + 3 <= term.length(); i++) {
+			int[] list = postings.get(gram(term, i, 3));
+			if (list == null) {
+				return List.of();
+			}
+			lists.add(list);
+		}
+		lists.sort(Comparator.comparingInt(list -> list.length));
+
+		List<CityDto> result = new ArrayList<>(Math.min(limit, lists.get(0).length));
+		int skipped = 0;
+		candidates:
+		for (int id : lists.get(0)) {
+			for (int i = 1; i < lists.size(); i++) {
+				if (Arrays.binarySearch(lists.get(i), id) < 0) {
+					continue candidates;
+				}
+			}
+			if (!names[id].contains(term)) {
+				continue;
+			}
+			if (skipped++ < offset) {
+				continue;
+			}
+			result.add(cities.get(id));
+			if (result.size() == limit) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private List<CityDto> scan(String term, int offset, int limit) {
+		List<CityDto> result = new ArrayList<>();
+		int skipped = 0;
+		for (int id = 0; id < names.length && result.size() < limit; id++) {
+			if (names[id].contains(term) && skipped++ >= offset) {
+				result.add(cities.get(id));
+			}
+		}
+		return result;
+	}
+
+	private List<CityDto> slice(int offset, int limit) {
+		int from = Math.min(offset, cities.size());
+		return cities.subList(from, (int) Math.min((long) from + limit, cities.size()));
+	}
+
+	private List<CityDto> page(int[] ids, int from, int to, int offset, int limit) {
+		int start = (int) Math.min((long) from + offset, to);
+		int end = (int) Math.min((long) start + limit, to);
+		List<CityDto> result = new ArrayList<>(end - start);
+		for (int i = start; i < end; i++) {
+			result.add(cities.get(ids[i]));
+		}
+		return result;
+	}
+
+	private int lowerBound(String term) {
+		int low = 0;
+		int high = byName.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (names[byName[mid]].compareTo(term) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static int[] sortedByName(String[] names) {
+		Integer[] order = new Integer[names.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparing((Integer id) -> names[id]).thenComparingInt(id -> id));
+		int[] byName = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			byName[i] = order[i];
+		}
+		return byName;
+	}
+
+	private static String normalize(String query) {
+		return query == null ? "" : query.toLowerCase(Locale.ROOT).trim();
+	}
+
+	private static long gram(String s, int start, int length) {
+		long key = length;
+		for (int i = start; i < start + length; i++) {
+			key = (key << 16) | s.charAt(i);
+		}
+		return key;
+	}
+
+	/**
+	 * Growable int array for building posting lists; ids arrive in ascending order.
+	 */
+	private static final class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		void addOnce(int value) {
+			if (size > 0 && values[size - 1] == value) {
+				return;
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package com.yasidu.weather_app.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs one task per input in parallel on a bounded pool and collects the results in input order.
+ * <p>
+ * Each task gets its own deadline, measured from the moment it starts running, and the whole call is
+ * bounded by an overall deadline. Tasks that miss either deadline are reported as
+ * {@link FanOutResult.Status#TIMEOUT} instead of failing the whole batch. A task that is still running when
+ * its deadline passes is interrupted, and blocking calls it makes can bound their own timeouts by
+ * {@link #remainingTaskTimeMillis()}, so a slow task does not keep its slot past the deadline.
+ * <p>
+ * With {@code spring.threads.virtual.enabled} on Java 21+, every task gets its own virtual thread and a
+ * semaphore keeps at most {@code parallelism} of them running, so waiting for a slot costs no platform thread.
+ */
+@Slf4j
+@Component
+public class FanOutExecutor implements DisposableBean {
+
+	private static final ThreadLocal<Long> TASK_DEADLINE = new ThreadLocal<>();
+
+	private final AsyncTaskExecutor executor;
+	private final Semaphore permits;
+
+	public FanOutExecutor(@Value("${app.weather.fan-out.parallelism:16}") int parallelism,
+						  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+		if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+			SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("weather-fan-out-");
+			virtual.setVirtualThreads(true);
+			this.executor = virtual;
+			this.permits = new Semaphore(parallelism);
+			return;
+		}
+		if (virtualThreads) {
+			log.warn("Virtual threads need Java 21 or later, fan-out stays on platform threads");
+		}
+
+		ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(parallelism);
+		pool.setMaxPoolSize(parallelism);
+		pool.setThreadNamePrefix("weather-fan-out-");
+		pool.initialize();
+		this.executor = pool;
+		this.permits = null;
+	}
+
+	public <T, R> List<FanOutResult<T, R>> invokeAll(List<T> inputs, Function<T, R> task,
+													 long perTaskTimeoutMs, long overallTimeoutMs) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(overallTimeoutMs);
+
+		List<CompletableFuture<R>> futures = new ArrayList<>(inputs.size());
+		for (T input : inputs) {
+			CompletableFuture<R> future = new CompletableFuture<>();
+			futures.add(future);
+			try {
+				executor.execute(() -> run(input, task, future, perTaskTimeoutMs));
+			} catch (RejectedExecutionException e) {
+				future.completeExceptionally(e);
+			}
+		}
+
+		try {
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+					.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			log.warn("Fan-out of {} tasks exceeded overall deadline of {} ms", inputs.size(), overallTimeoutMs);
+		} catch (ExecutionException e) {
+			// Individual failures are reported per result below.
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		List<FanOutResult<T, R>> results = new ArrayList<>(inputs.size());
+		for (int i = 0; i < inputs.size(); i++) {
+			results.add(FanOutResult.of(inputs.get(i), futures.get(i)));
+		}
+		return results;
+	}
+
+	private <T, R> void run(T input, Function<T, R> task, CompletableFuture<R> future, long perTaskTimeoutMs) {
+		if (permits == null) {
+			runNow(input, task, future, perTaskTimeoutMs);
+			return;
+		}
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			future.completeExceptionally(e);
+			return;
+		}
+		try {
+			runNow(input, task, future, perTaskTimeoutMs);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Milliseconds left before the task running on the calling thread misses its deadline, or {@code -1} when
+	 * the calling thread is not running a fan-out task.
+	 */
+	public static long remainingTaskTimeMillis() {
+		Long deadline = TASK_DEADLINE.get();
+		if (deadline == null) {
+			return -1;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+	private <T, R> void runNow(T input, Function<T, R> task, CompletableFuture<R> future, long perTaskTimeoutMs) {
+		if (future.isDone()) {
+			return;
+		}
+		// Cleared under its own lock once the task returns, so a late timeout cannot interrupt the next task.
+		AtomicReference<Thread> worker = new AtomicReference<>(Thread.currentThread());
+		future.orTimeout(perTaskTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+			if (error instanceof TimeoutException || error instanceof CancellationException) {
+				synchronized (worker) {
+					Thread running = worker.get();
+					if (running != null) {
+						running.interrupt();
+					}
+				}
+			}
+		});
+		TASK_DEADLINE.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(perTaskTimeoutMs));
+		try {
+			future.complete(task.apply(input));
+		} catch (Throwable t) {
+			future.completeExceptionally(t);
+		} finally {
+			TASK_DEADLINE.remove();
+			synchronized (worker) {
+				worker.set(null);
+				Thread.interrupted();
+			}
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (executor instanceof DisposableBean pool) {
+			pool.destroy();
+		} else if (executor instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+}
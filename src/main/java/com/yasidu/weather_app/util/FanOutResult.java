@@ -0,0 +1,42 @@
+package com.yasidu.weather_app.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Outcome of a single task run by {@link FanOutExecutor}, or of one future in a non-blocking fan-out, paired
+ * with the input it was run for.
+ */
+public record FanOutResult<T, R>(T input, Status status, R value, Throwable error) {
+
+	public enum Status {
+		OK,
+		FAILED,
+		TIMEOUT
+	}
+
+	public boolean isOk() {
+		return status == Status.OK;
+	}
+
+	/**
+	 * Classifies {@code future} once its deadline has passed; a future that is still running counts as timed out.
+	 */
+	public static <T, R> FanOutResult<T, R> of(T input, CompletableFuture<R> future) {
+		// Still running once the overall deadline has passed: cancel so a queued task is skipped.
+		if (future.cancel(false)) {
+			return new FanOutResult<>(input, Status.TIMEOUT, null, null);
+		}
+		try {
+			return new FanOutResult<>(input, Status.OK, future.join(), null);
+		} catch (CancellationException e) {
+			return new FanOutResult<>(input, Status.TIMEOUT, null, e);
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			Status status = cause instanceof TimeoutException ? Status.TIMEOUT : Status.FAILED;
+			return new FanOutResult<>(input, status, null, cause);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.yasidu.weather_app.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Streaming parse of {@code /weather} and {@code /group} payloads, including the parts of a real response the app
+ * skips.
+ */
+class CurrentWeatherReaderTest {
+
+	private static final String CITY = """
+			{"coord":{"lon":79.85,"lat":6.93},
+			 "weather":[{"id":500,"main":"Rain","description":"light rain","icon":"10d"},
+			            {"id":701,"main":"Mist","description":"mist","icon":"50d"}],
+			 "base":"stations",
+			 "main":{"temp":27.5,"feels_like":30.1,"temp_min":26.0,"temp_max":28.0,"pressure":1010,"humidity":80,
+			         "sea_level":1010,"grnd_level":1009},
+			 "visibility":10000,
+			 "wind":{"speed":3.6,"deg":220,"gust":5.1},
+			 "rain":{"1h":0.4},
+			 "clouds":{"all":75},
+			 "dt":1700020000,
+			 "sys":{"type":1,"id":9098,"country":"LK","sunrise":1700000000,"sunset":1700040000},
+			 "timezone":19800,"id":1248991,"name":"Colombo","cod":200}
+			""";
+
+	private final CurrentWeatherReader reader = new CurrentWeatherReader(new JsonFactory());
+
+	@Test
+	void readsTheFieldsTheAppUsesAndSkipsTheRest() throws IOException {
+		long before = System.currentTimeMillis();
+
+		CurrentWeather weather = reader.readCity("1248991", bytes(CITY));
+
+		assertThat(weather).usingRecursiveComparison().ignoringFields("fetchedAt").isEqualTo(
+				new CurrentWeather("1248991", "Colombo", "light rain", "Rain", "10d", 27.5, 30.1, 26.0, 28.0, 1010, 80,
+						10000, 3.6, 220, 1700000000, 1700040000, 0));
+		assertThat(weather.fetchedAt()).isGreaterThanOrEqualTo(before);
+	}
+
+	@Test
+	void keepsTheRequestedCityCodeOverThePayloadId() throws IOException {
+		assertThat(reader.readCity("colombo", bytes(CITY)).cityCode()).isEqualTo("colombo");
+	}
+
+	@Test
+	void missingSectionsFallBackToDefaults() throws IOException {
+		CurrentWeather weather = reader.readCity("1001", bytes("{\"weather\":[],\"main\":null,\"wind\":\"calm\"}"));
+
+		assertThat(weather.name()).isEqualTo("Unknown City");
+		assertThat(weather.description()).isNull();
+		assertThat(weather.staticStatus()).isNull();
+		assertThat(weather.temp()).isZero();
+		assertThat(weather.windSpeed()).isZero();
+	}
+
+	@Test
+	void groupIsKeyedByTheIdOfEachEntry() throws IOException {
+		String group = "{\"cnt\":2,\"list\":[" + StubOpenWeather.cityJson("1001") + "," + CITY + ","
+				+ StubOpenWeather.cityJson("1002") + "],\"extra\":{\"list\":[]}}";
+
+		Map<String, CurrentWeather> byCityCode = reader.readGroup(bytes(group));
+
+		assertThat(byCityCode).containsOnlyKeys("1001", "1248991", "1002");
+		assertThat(byCityCode.get("1001").name()).isEqualTo("Upstream 1001");
+		assertThat(byCityCode.get("1248991").staticStatus()).isEqualTo("Rain");
+		assertThat(byCityCode.get("1002").humidity()).isEqualTo(80);
+	}
+
+	@Test
+	void rejectsAPayloadThatIsNotAnObject() {
+		assertThatThrownBy(() -> reader.readCity("1001", bytes("[]"))).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> reader.readGroup(bytes("\"error\""))).isInstanceOf(IOException.class);
+	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
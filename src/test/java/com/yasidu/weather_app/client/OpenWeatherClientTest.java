@@ -0,0 +1,184 @@
+package com.yasidu.weather_app.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yasidu.weather_app.config.ResilienceConfig;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.util.DeadlineTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Circuit breaker and bulkhead around the upstream calls, against the stub upstream: every call that took a
+ * permit gives it back, however it ends.
+ */
+class OpenWeatherClientTest {
+
+	private static final int BULKHEAD_SIZE = 4;
+	private static final int MINIMUM_NUMBER_OF_CALLS = 10;
+
+	private final ResilienceConfig resilienceConfig = new ResilienceConfig();
+
+	private StubOpenWeather upstream;
+	private CircuitBreaker circuitBreaker;
+	private Bulkhead bulkhead;
+	private OpenWeatherClient client;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		upstream = new StubOpenWeather();
+		circuitBreaker = resilienceConfig.openWeatherCircuitBreaker(resilienceConfig.circuitBreakerRegistry(
+				50, 5_000, 80, 20, MINIMUM_NUMBER_OF_CALLS, 30_000, 3));
+		bulkhead = resilienceConfig.openWeatherBulkhead(resilienceConfig.bulkheadRegistry(BULKHEAD_SIZE, 0));
+		client = upstream.client(circuitBreaker, bulkhead, BULKHEAD_SIZE, 5_000);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		upstream.close();
+	}
+
+	@Test
+	void cityCodeIsSentAsOneEncodedId() throws Exception {
+		String cityCode = "a b&appid=other,1";
+
+		client.fetchCityAsync(cityCode).handle((weather, error) -> null).join();
+		client.fetchGroupAsync(List.of(cityCode, "1001")).handle((weather, error) -> null).join();
+
+		assertThat(upstream.requests()).containsExactly("/weather?id=" + cityCode, "/group?id=" + cityCode + ",1001");
+		awaitPermitsReleased();
+	}
+
+	@Test
+	void requestTheClientRefusesToStartReleasesItsPermits() throws Exception {
+		CloseableHttpAsyncClient refusingHttpClient = mock(CloseableHttpAsyncClient.class);
+		when(refusingHttpClient.execute(any(SimpleHttpRequest.class), any(FutureCallback.class)))
+				.thenThrow(new IllegalStateException("Client is not running"));
+		OpenWeatherClient refusingClient = new OpenWeatherClient(new RestTemplate(), refusingHttpClient,
+				new ObjectMapper(), circuitBreaker, bulkhead, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(refusingClient, "baseUrl", upstream.baseUrl());
+
+		for (int i = 0; i < BULKHEAD_SIZE * 2; i++) {
+			assertThatThrownBy(() -> refusingClient.fetchCityAsync("1001").join())
+					.hasCauseInstanceOf(IllegalStateException.class);
+		}
+
+		awaitPermitsReleased();
+	}
+
+	@Test
+	void upstreamFailuresOpenTheBreaker() throws Exception {
+		upstream.respondWith(500);
+
+		for (int i = 0; i < MINIMUM_NUMBER_OF_CALLS; i++) {
+			assertThatThrownBy(() -> client.fetchCityAsync("1001").join())
+					.hasCauseInstanceOf(HttpServerErrorException.class);
+		}
+
+		awaitPermitsReleased();
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> client.fetchCity("1001")).isInstanceOf(CallNotPermittedException.class);
+		assertThatThrownBy(() -> client.fetchCityAsync("1001").join())
+				.hasCauseInstanceOf(CallNotPermittedException.class);
+		assertThat(upstream.requests()).hasSize(MINIMUM_NUMBER_OF_CALLS);
+	}
+
+	@Test
+	void unknownCitiesDoNotCountAgainstTheUpstream() throws Exception {
+		upstream.respondWith(404);
+
+		for (int i = 0; i < MINIMUM_NUMBER_OF_CALLS; i++) {
+			assertThatThrownBy(() -> client.fetchCity("1001")).isInstanceOf(HttpClientErrorException.NotFound.class);
+		}
+
+		awaitPermitsReleased();
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+	}
+
+	@Test
+	void fullBulkheadRejectsWithoutReachingTheUpstream() throws Exception {
+		upstream.delay(500);
+		List<CompletableFuture<?>> inFlight = new ArrayList<>();
+		for (int i = 0; i < BULKHEAD_SIZE; i++) {
+			inFlight.add(client.fetchCityAsync(String.valueOf(1001 + i)));
+		}
+
+		assertThatThrownBy(() -> client.fetchCityAsync("2001").join()).hasCauseInstanceOf(BulkheadFullException.class);
+		assertThatThrownBy(() -> client.fetchCity("2001")).isInstanceOf(BulkheadFullException.class);
+
+		inFlight.forEach(CompletableFuture::join);
+		assertThat(upstream.requests()).hasSize(BULKHEAD_SIZE);
+		awaitPermitsReleased();
+		assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+	}
+
+	/**
+	 * A bulkhead wider than the connection pool lets calls queue for a connection; those that time out waiting say
+	 * nothing about the upstream.
+	 */
+	@Test
+	void connectionLeaseTimeoutsDoNotCountAgainstTheUpstream() throws Exception {
+		Bulkhead widerThanPool = resilienceConfig.bulkheadRegistry(2, 0).bulkhead("wider-than-pool");
+		OpenWeatherClient pooledClient = upstream.client(circuitBreaker, widerThanPool, 1, 5_000);
+		upstream.delay(1_500);
+
+		CompletableFuture<?> holdsConnection = pooledClient.fetchCityAsync("1001");
+		Thread.sleep(200);
+		assertThatThrownBy(() -> pooledClient.fetchCityAsync("1002").join())
+				.hasCauseInstanceOf(DeadlineTimeoutException.class);
+		holdsConnection.join();
+
+		CompletableFuture<?> holdsClassicConnection = CompletableFuture.runAsync(() -> {
+			try {
+				pooledClient.fetchCity("1003");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		Thread.sleep(200);
+		assertThatThrownBy(() -> pooledClient.fetchCity("1004"))
+				.hasCauseInstanceOf(ConnectionRequestTimeoutException.class);
+		holdsClassicConnection.join();
+
+		awaitPermitsReleased();
+		assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+		assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(2);
+	}
+
+	/**
+	 * A caller can see the outcome of an async call just before the client records it and releases its permits.
+	 */
+	private void awaitPermitsReleased() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (bulkhead.getMetrics().getAvailableConcurrentCalls() < BULKHEAD_SIZE) {
+			assertThat(System.currentTimeMillis()).as("permits released").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.yasidu.weather_app.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingJwtDecoderTest {
+
+	private final AtomicInteger verifications = new AtomicInteger();
+
+	@Test
+	void verifiesEachTokenOnce() {
+		JwtDecoder decoder = new CachingJwtDecoder(validUntil(Instant.now().plusSeconds(3600)), 100,
+				Duration.ofMinutes(5));
+
+		Jwt first = decoder.decode("token-a");
+		Jwt again = decoder.decode("token-a");
+		decoder.decode("token-b");
+
+		assertThat(again).isSameAs(first);
+		assertThat(verifications).hasValue(2);
+	}
+
+	@Test
+	void rejectedTokensAreVerifiedEveryTime() {
+		JwtDecoder decoder = new CachingJwtDecoder(token -> {
+			verifications.incrementAndGet();
+			throw new BadJwtException("bad signature");
+		}, 100, Duration.ofMinutes(5));
+
+		assertThatThrownBy(() -> decoder.decode("token-a")).isInstanceOf(BadJwtException.class);
+		assertThatThrownBy(() -> decoder.decode("token-a")).isInstanceOf(BadJwtException.class);
+		assertThat(verifications).hasValue(2);
+	}
+
+	@Test
+	void tokenIsVerifiedAgainOnceItExpires() throws InterruptedException {
+		JwtDecoder decoder = new CachingJwtDecoder(validUntil(Instant.now().plusMillis(200)), 100,
+				Duration.ofMinutes(5));
+
+		decoder.decode("token-a");
+		Thread.sleep(300);
+		decoder.decode("token-a");
+
+		assertThat(verifications).hasValue(2);
+	}
+
+	@Test
+	void tokenIsVerifiedAgainAfterMaxAge() throws InterruptedException {
+		JwtDecoder decoder = new CachingJwtDecoder(validUntil(Instant.now().plusSeconds(3600)), 100,
+				Duration.ofMillis(200));
+
+		decoder.decode("token-a");
+		Thread.sleep(300);
+		decoder.decode("token-a");
+
+		assertThat(verifications).hasValue(2);
+	}
+
+	private JwtDecoder validUntil(Instant expiresAt) {
+		Instant issuedAt = Instant.now();
+		return token -> {
+			verifications.incrementAndGet();
+			return Jwt.withTokenValue(token)
+					.header("alg", "RS256")
+					.subject("user")
+					.audience(List.of("api"))
+					.issuedAt(issuedAt)
+					.expiresAt(expiresAt)
+					.build();
+		};
+	}
+}
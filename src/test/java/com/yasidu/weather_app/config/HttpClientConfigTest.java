@@ -0,0 +1,145 @@
+package com.yasidu.weather_app.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Exercises the OpenWeather HTTP client against a local stub server, without network access.
+ */
+class HttpClientConfigTest {
+
+	private static final String BODY = "{\"name\":\"Colombo\",\"main\":{\"temp\":30.5}}";
+
+	private final HttpClientConfig config = new HttpClientConfig();
+	private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+	private final Set<String> acceptEncodings = ConcurrentHashMap.newKeySet();
+
+	private HttpServer server;
+	private ExecutorService serverExecutor;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private CloseableHttpClient httpClient;
+	private RestTemplate restTemplate;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/weather", this::weather);
+		server.createContext("/slow", exchange -> {
+			sleep(1_000);
+			respond(exchange, BODY.getBytes(StandardCharsets.UTF_8), false);
+		});
+		serverExecutor = Executors.newFixedThreadPool(4);
+		server.setExecutor(serverExecutor);
+		server.start();
+
+		connectionManager = config.openWeatherConnectionManager(10, 5, 1_000, 300);
+		httpClient = config.openWeatherHttpClient(connectionManager, 1_000, 300, 30_000);
+		restTemplate = config.restTemplate(httpClient);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		httpClient.close();
+		connectionManager.close();
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Test
+	void reusesPooledConnectionsAcrossRequests() {
+		for (int i = 0; i < 50; i++) {
+			assertThat(restTemplate.getForObject(url("/weather"), String.class)).isEqualTo(BODY);
+		}
+
+		assertThat(clientPorts).hasSize(1);
+		assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+		assertThat(connectionManager.getTotalStats().getAvailable()).isEqualTo(1);
+	}
+
+	@Test
+	void requestsAndDecodesGzip() {
+		byte[] body = restTemplate.getForObject(url("/weather"), byte[].class);
+
+		assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(BODY);
+		assertThat(acceptEncodings).anyMatch(encoding -> encoding.contains("gzip"));
+	}
+
+	@Test
+	void failsWhenTheUpstreamIsSlowerThanTheReadTimeout() {
+		assertThatThrownBy(() -> restTemplate.getForObject(url("/slow"), String.class))
+				.isInstanceOf(ResourceAccessException.class);
+	}
+
+	@Test
+	void exportsPoolMetrics() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		config.openWeatherConnectionPoolMetrics(connectionManager).bindTo(registry);
+		restTemplate.getForObject(url("/weather"), String.class);
+
+		assertThat(registry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "openweather")
+				.gauge().value()).isEqualTo(10);
+		assertThat(registry.get("httpcomponents.httpclient.pool.total.connections").tag("state", "available")
+				.gauge().value()).isEqualTo(1);
+	}
+
+	private void weather(HttpExchange exchange) throws IOException {
+		clientPorts.add(exchange.getRemoteAddress().getPort());
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+		if (acceptEncoding != null) {
+			acceptEncodings.add(acceptEncoding);
+		}
+		respond(exchange, BODY.getBytes(StandardCharsets.UTF_8), gzip);
+	}
+
+	private static void respond(HttpExchange exchange, byte[] body, boolean gzip) throws IOException {
+		if (gzip) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+				out.write(body);
+			}
+			body = compressed.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String url(String path) {
+		return "http://localhost:" + server.getAddress().getPort() + path;
+	}
+}
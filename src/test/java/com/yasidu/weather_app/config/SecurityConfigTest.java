@@ -0,0 +1,69 @@
+package com.yasidu.weather_app.config;
+
+import com.yasidu.weather_app.controller.WeatherController;
+import com.yasidu.weather_app.service.CitySyncService;
+import com.yasidu.weather_app.service.WeatherService;
+import com.yasidu.weather_app.service.WeatherStreamService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Access rules of the filter chain, with tokens given directly instead of decoded.
+ */
+@WebMvcTest(controllers = WeatherController.class, properties = {
+		"AUTH0_DOMAIN=example.auth0.com",
+		"AUTH0_ISSUER_URI=https://example.auth0.com/",
+		"AUTH0_AUDIENCE=https://weather-api",
+		"AUTH0_CLIENT_ID=client",
+		"AUTH0_CLIENT_SECRET=secret"
+})
+@Import(SecurityConfig.class)
+class SecurityConfigTest {
+
+	private static final String RELOAD = "/api/v1/weather/cities/reload";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private JwtDecoder jwtDecoder;
+	@MockitoBean
+	private WeatherService weatherService;
+	@MockitoBean
+	private CitySyncService citySyncService;
+	@MockitoBean
+	private WeatherStreamService weatherStreamService;
+	@MockitoBean
+	private CacheProperties cacheProperties;
+
+	@Test
+	void reloadNeedsTheAdminScope() throws Exception {
+		mockMvc.perform(post(RELOAD).with(jwt().jwt(token -> token.claim("scope", "openid profile"))))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(post(RELOAD)).andExpect(status().isUnauthorized());
+
+		verify(citySyncService, never()).reloadCities();
+	}
+
+	@Test
+	void reloadIsAllowedWithTheAdminScope() throws Exception {
+		when(citySyncService.reloadCities()).thenReturn(3);
+
+		mockMvc.perform(post(RELOAD).with(jwt().jwt(token -> token.claim("scope", "openid weather:admin"))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data").value("Loaded 3 cities"));
+	}
+}
@@ -0,0 +1,52 @@
+package com.yasidu.weather_app.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which Redis auto-configuration ends up excluded for each {@code app.cache.l2.type}.
+ */
+class SharedCacheEnvironmentPostProcessorTest {
+
+	private final SharedCacheEnvironmentPostProcessor postProcessor = new SharedCacheEnvironmentPostProcessor();
+
+	@Test
+	void redisStaysOffWithoutTheSharedTier() {
+		assertThat(excludedWith(new MockEnvironment()))
+				.containsExactlyElementsOf(SharedCacheEnvironmentPostProcessor.REDIS_AUTO_CONFIGURATIONS);
+		assertThat(excludedWith(new MockEnvironment().withProperty("app.cache.l2.type", "in-memory")))
+				.containsExactlyElementsOf(SharedCacheEnvironmentPostProcessor.REDIS_AUTO_CONFIGURATIONS);
+	}
+
+	@Test
+	void redisTierKeepsRedisAutoConfiguration() {
+		MockEnvironment environment = new MockEnvironment().withProperty("app.cache.l2.type", "redis");
+
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+		assertThat(environment.getProperty(SharedCacheEnvironmentPostProcessor.EXCLUDE)).isNull();
+	}
+
+	@Test
+	void existingExclusionsAreKept() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty(SharedCacheEnvironmentPostProcessor.EXCLUDE + "[0]", "com.example.FirstAutoConfiguration")
+				.withProperty(SharedCacheEnvironmentPostProcessor.EXCLUDE + "[1]",
+						SharedCacheEnvironmentPostProcessor.REDIS_AUTO_CONFIGURATIONS.get(0));
+
+		assertThat(excludedWith(environment)).startsWith("com.example.FirstAutoConfiguration")
+				.containsAll(SharedCacheEnvironmentPostProcessor.REDIS_AUTO_CONFIGURATIONS)
+				.doesNotHaveDuplicates();
+	}
+
+	private List<String> excludedWith(MockEnvironment environment) {
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+		return Arrays.asList(environment.getProperty(SharedCacheEnvironmentPostProcessor.EXCLUDE, String[].class));
+	}
+}
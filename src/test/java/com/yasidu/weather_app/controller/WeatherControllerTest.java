@@ -0,0 +1,168 @@
+package com.yasidu.weather_app.controller;
+
+import com.yasidu.weather_app.config.CacheConfig;
+import com.yasidu.weather_app.config.CacheProperties;
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.exception.WeatherDataNotFoundException;
+import com.yasidu.weather_app.service.CitySyncService;
+import com.yasidu.weather_app.service.WeatherService;
+import com.yasidu.weather_app.service.WeatherStreamService;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs and error mapping of the weather endpoints, with the services behind the controller stubbed.
+ */
+class WeatherControllerTest {
+
+	private static final Duration FRESH_FOR = Duration.ofMinutes(10);
+
+	private final WeatherService weatherService = mock(WeatherService.class);
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		CacheProperties cacheProperties = new CacheProperties();
+		CacheProperties.Spec spec = new CacheProperties.Spec();
+		spec.setExpireAfterWrite(Duration.ofMinutes(30));
+		spec.setRefreshAfterWrite(FRESH_FOR);
+		cacheProperties.getSpecs().put(CacheConfig.WEATHER_CACHE, spec);
+
+		mockMvc = MockMvcBuilders.standaloneSetup(new WeatherController(weatherService, mock(CitySyncService.class),
+						mock(WeatherStreamService.class), cacheProperties))
+				.setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+				.build();
+	}
+
+	@Test
+	void cityWeatherCarriesAnEtagAndTheTimeLeftUntilItsRefresh() throws Exception {
+		CurrentWeather weather = StubOpenWeather.weather("1001", System.currentTimeMillis() - 60_000);
+		when(weatherService.fetchWeatherForCityAsync("1001")).thenReturn(CompletableFuture.completedFuture(weather));
+
+		MvcResult result = perform(get("/api/v1/weather/1001"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, WeatherCacheHeaders.etag(weather)))
+				.andExpect(jsonPath("$.data.cityCode").value("1001"))
+				.andReturn();
+
+		assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).startsWith("W/\"1001-");
+		long remaining = FRESH_FOR.minusMinutes(1).toSeconds();
+		assertThat(maxAge(result)).isBetween(remaining - 5, remaining);
+		assertThat(result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL)).contains("private");
+	}
+
+	@Test
+	void matchingIfNoneMatchGetsAnEmpty304() throws Exception {
+		CurrentWeather weather = StubOpenWeather.weather("1001", System.currentTimeMillis());
+		when(weatherService.fetchWeatherForCityAsync("1001")).thenReturn(CompletableFuture.completedFuture(weather));
+
+		perform(get("/api/v1/weather/1001").header(HttpHeaders.IF_NONE_MATCH, WeatherCacheHeaders.etag(weather)))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	void refreshedEntryNoLongerMatches() throws Exception {
+		CurrentWeather before = StubOpenWeather.weather("1001", System.currentTimeMillis() - 1_000);
+		CurrentWeather refreshed = StubOpenWeather.weather("1001", System.currentTimeMillis());
+		when(weatherService.fetchWeatherForCityAsync("1001")).thenReturn(CompletableFuture.completedFuture(refreshed));
+
+		perform(get("/api/v1/weather/1001").header(HttpHeaders.IF_NONE_MATCH, WeatherCacheHeaders.etag(before)))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, WeatherCacheHeaders.etag(refreshed)));
+	}
+
+	@Test
+	void entryPastItsRefreshIsNotFresh() throws Exception {
+		CurrentWeather weather = StubOpenWeather.weather("1001", System.currentTimeMillis() - FRESH_FOR.toMillis() * 2);
+		when(weatherService.fetchWeatherForCityAsync("1001")).thenReturn(CompletableFuture.completedFuture(weather));
+
+		assertThat(maxAge(perform(get("/api/v1/weather/1001")).andReturn())).isZero();
+	}
+
+	@Test
+	void failuresMapToTheirStatus() throws Exception {
+		when(weatherService.fetchWeatherForCityAsync("404")).thenReturn(CompletableFuture.failedFuture(
+				new WeatherDataNotFoundException("Weather data not found for city code: 404")));
+		when(weatherService.fetchWeatherForCityAsync("503")).thenReturn(CompletableFuture.failedFuture(
+				CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("test"))));
+		when(weatherService.fetchWeatherForCityAsync("500")).thenReturn(CompletableFuture.failedFuture(
+				HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", HttpHeaders.EMPTY, null, null)));
+
+		perform(get("/api/v1/weather/404")).andExpect(status().isNotFound())
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG));
+		perform(get("/api/v1/weather/503")).andExpect(status().isServiceUnavailable());
+		perform(get("/api/v1/weather/500")).andExpect(status().isInternalServerError());
+	}
+
+	@Test
+	void allCitiesEtagChangesWithAnyCity() throws Exception {
+		long now = System.currentTimeMillis();
+		List<CityWeatherView> views = List.of(view("1001", now, CityWeatherView.FetchStatus.OK),
+				view("1002", now, CityWeatherView.FetchStatus.OK));
+		List<CityWeatherView> oneRefreshed = List.of(views.get(0), view("1002", now + 1, CityWeatherView.FetchStatus.OK));
+		when(weatherService.fetchWeatherForAllCitiesAsync()).thenReturn(CompletableFuture.completedFuture(views));
+
+		String etag = perform(get("/api/v1/weather/cities/all-weather")).andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		perform(get("/api/v1/weather/cities/all-weather").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		assertThat(WeatherCacheHeaders.etag(oneRefreshed)).isNotEqualTo(etag);
+	}
+
+	@Test
+	void partialAllCitiesAnswerIsNotFresh() throws Exception {
+		long now = System.currentTimeMillis();
+		when(weatherService.fetchWeatherForAllCitiesAsync()).thenReturn(CompletableFuture.completedFuture(List.of(
+				view("1001", now, CityWeatherView.FetchStatus.OK),
+				view("1002", now, CityWeatherView.FetchStatus.STALE))));
+
+		assertThat(maxAge(perform(get("/api/v1/weather/cities/all-weather")).andReturn())).isZero();
+	}
+
+	private ResultActions perform(RequestBuilder request) throws Exception {
+		MvcResult started = mockMvc.perform(request).andReturn();
+		return mockMvc.perform(asyncDispatch(started));
+	}
+
+	private static long maxAge(MvcResult result) {
+		String cacheControl = result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL);
+		assertThat(cacheControl).contains("max-age=");
+		return Long.parseLong(cacheControl.replaceAll(".*max-age=(\\d+).*", "$1"));
+	}
+
+	private static CityWeatherView view(String cityCode, long fetchedAt, CityWeatherView.FetchStatus fetchStatus) {
+		return CityWeatherView.of(new CityDto(cityCode, "City " + cityCode, "25.0", "Clear"),
+				StubOpenWeather.weather(cityCode, fetchedAt), fetchStatus);
+	}
+}
@@ -0,0 +1,113 @@
+package com.yasidu.weather_app.scheduler;
+
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.dto.WarmUpResult;
+import com.yasidu.weather_app.service.CitySyncService;
+import com.yasidu.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pacing and accounting of a warm-up run over three group requests, with the services behind it stubbed.
+ */
+class WeatherCacheWarmerTest {
+
+	private static final int CITY_COUNT = 50;
+	private static final int REQUESTS_PER_MINUTE = 300;
+	private static final long REQUEST_INTERVAL_MS = 60_000 / REQUESTS_PER_MINUTE;
+
+	private final Queue<String> warmedOn = new ConcurrentLinkedQueue<>();
+	private final Queue<Long> warmedAt = new ConcurrentLinkedQueue<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private volatile int unknownPerChunk;
+
+	private WeatherCacheWarmer warmer;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		List<CityDto> cities = new ArrayList<>();
+		for (int i = 0; i < CITY_COUNT; i++) {
+			cities.add(new CityDto(String.valueOf(1_000_000 + i), "City " + i, "20.0", "Clouds"));
+		}
+		CitySyncService citySyncService = mock(CitySyncService.class);
+		when(citySyncService.getAllCityWeather()).thenReturn(cities);
+		WeatherService weatherService = mock(WeatherService.class);
+		when(weatherService.warmUpCities(anyList())).thenAnswer(invocation -> {
+			warmedOn.add(Thread.currentThread().getName());
+			warmedAt.add(System.currentTimeMillis());
+			int size = invocation.getArgument(0, List.class).size();
+			return new WarmUpResult(size - unknownPerChunk, unknownPerChunk, 0);
+		});
+
+		warmer = new WeatherCacheWarmer(weatherService, citySyncService, meterRegistry, REQUESTS_PER_MINUTE);
+	}
+
+	@AfterEach
+	void tearDown() {
+		warmer.destroy();
+	}
+
+	@Test
+	void runIsPacedOnTheWarmersOwnThread() throws Exception {
+		long start = System.currentTimeMillis();
+		warmer.warmUp();
+		long triggerTook = System.currentTimeMillis() - start;
+
+		awaitChunks(3);
+
+		assertThat(triggerTook).isLessThan(REQUEST_INTERVAL_MS);
+		assertThat(warmedOn).allSatisfy(thread -> assertThat(thread).startsWith("weather-warmer-"));
+		// Measured from the trigger: a chunk that is late to record its time does not move the next one.
+		List<Long> times = List.copyOf(warmedAt);
+		for (int i = 1; i < times.size(); i++) {
+			assertThat(times.get(i) - start).isGreaterThanOrEqualTo(i * REQUEST_INTERVAL_MS - 10);
+		}
+	}
+
+	@Test
+	void triggerWhileRunningIsSkipped() throws Exception {
+		warmer.warmUp();
+		warmer.warmUp();
+
+		awaitChunks(3);
+		Thread.sleep(REQUEST_INTERVAL_MS * 2);
+
+		assertThat(warmedAt).hasSize(3);
+	}
+
+	@Test
+	void unknownCitiesAreNotCountedAsFailures() throws Exception {
+		unknownPerChunk = 2;
+
+		warmer.warmUp();
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (meterRegistry.get("weather.warmer.last.unknown").gauge().value() != 6) {
+			assertThat(System.currentTimeMillis()).as("warm-up run").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		assertThat(meterRegistry.get("weather.warmer.last.failures").gauge().value()).isZero();
+		assertThat(meterRegistry.get("weather.warmer.failures").counter().count()).isZero();
+	}
+
+	private void awaitChunks(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (warmedAt.size() < count) {
+			assertThat(System.currentTimeMillis()).as("warm-up chunks").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
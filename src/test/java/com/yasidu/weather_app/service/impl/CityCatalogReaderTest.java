@@ -0,0 +1,104 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yasidu.weather_app.dto.CityDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The accepted {@code cities.json} shapes, read from temporary files and from the bundled catalog.
+ */
+class CityCatalogReaderTest {
+
+	private static final String CITIES = """
+			[{"CityCode":"1248991","CityName":"Colombo","Temp":"33.0","Status":"Clouds","Country":{"Code":"LK"}},
+			 {"CityName":"Tokyo","CityCode":"1850147","Temp":"33.0","Status":"Clouds"},
+			 {"CityCode":"2644210","CityName":"Liverpool","Temp":null,"Aliases":["Pool"]}]
+			""";
+
+	private final CityCatalogReader reader = new CityCatalogReader(new ObjectMapper(), new DefaultResourceLoader());
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void readsABareArray() throws IOException {
+		List<CityDto> cities = reader.read(write("cities.json", CITIES));
+
+		assertThat(cities).extracting(CityDto::getCityCode).containsExactly("1248991", "1850147", "2644210");
+		assertThat(cities.get(1)).isEqualTo(new CityDto("1850147", "Tokyo", "33.0", "Clouds"));
+		assertThat(cities.get(2)).isEqualTo(new CityDto("2644210", "Liverpool", null, null));
+	}
+
+	@Test
+	void readsTheListOfAnObjectSkippingOtherFields() throws IOException {
+		String catalog = "{\"Version\":3,\"Meta\":{\"List\":[{\"CityCode\":\"0\"}]},\"List\":" + CITIES
+				+ ",\"Trailer\":true}";
+
+		assertThat(reader.read(write("cities.json", catalog)))
+				.extracting(CityDto::getCityCode).containsExactly("1248991", "1850147", "2644210");
+	}
+
+	@Test
+	void detectsGzipFromTheContent() throws IOException {
+		Path file = tempDir.resolve("cities.json");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+			out.write(CITIES.getBytes(StandardCharsets.UTF_8));
+		}
+
+		assertThat(reader.read("file:" + file)).hasSize(3);
+	}
+
+	@Test
+	void repeatedValuesShareOneInstance() throws IOException {
+		List<CityDto> cities = reader.read(write("cities.json", CITIES));
+
+		assertThat(cities.get(0).getTemp()).isSameAs(cities.get(1).getTemp());
+		assertThat(cities.get(0).getStatus()).isSameAs(cities.get(1).getStatus());
+	}
+
+	@Test
+	void handsCitiesToTheConsumerInFileOrder() throws IOException {
+		List<String> seen = new ArrayList<>();
+
+		reader.read(write("cities.json", CITIES), city -> seen.add(city.getCityName()));
+
+		assertThat(seen).containsExactly("Colombo", "Tokyo", "Liverpool");
+	}
+
+	@Test
+	void rejectsOtherShapes() throws IOException {
+		String withoutList = write("no-list.json", "{\"Cities\":" + CITIES + "}");
+		String scalar = write("scalar.json", "\"cities\"");
+
+		assertThatThrownBy(() -> reader.read(withoutList)).isInstanceOf(IOException.class).hasMessageContaining("List");
+		assertThatThrownBy(() -> reader.read(scalar)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void readsTheBundledCatalogFromTheClasspath() throws IOException {
+		List<CityDto> cities = reader.read("cities.json");
+
+		assertThat(cities).isNotEmpty().allSatisfy(city -> assertThat(city.getCityCode()).isNotBlank());
+		assertThat(cities.get(0).getCityName()).isEqualTo("Colombo");
+	}
+
+	private String write(String name, String content) throws IOException {
+		Path file = tempDir.resolve(name);
+		Files.writeString(file, content);
+		return "file:" + file;
+	}
+}
@@ -0,0 +1,151 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.event.CityCatalogReloadedEvent;
+import com.yasidu.weather_app.exception.CityLoadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Snapshots of a catalog file that the tests rewrite between loads.
+ */
+class CityCatalogTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@TempDir
+	Path tempDir;
+
+	private final Queue<Object> events = new ConcurrentLinkedQueue<>();
+	private final List<CityCatalog> catalogs = new ArrayList<>();
+
+	private Path file;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		file = tempDir.resolve("cities.json");
+		write(city("1", "Colombo"), city("2", "Kandy"), city("1", "Colombo again"));
+	}
+
+	@AfterEach
+	void tearDown() {
+		catalogs.forEach(CityCatalog::destroy);
+	}
+
+	@Test
+	void snapshotCannotBeModified() {
+		CityCatalog.Snapshot snapshot = catalog(false, false).snapshot();
+
+		assertThat(snapshot.cityCodes()).containsExactly("1", "2", "1");
+		assertThat(snapshot.find("1").getCityName()).isEqualTo("Colombo");
+		assertThat(snapshot.searchIndex().contains("kan", 0, 10)).extracting(CityDto::getCityName)
+				.containsExactly("Kandy");
+		assertThatThrownBy(() -> snapshot.cities().add(city("3", "Galle")))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> snapshot.byCode().remove("1")).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void sharedCityEntriesHaveNoSetters() {
+		assertThat(CityDto.class.getMethods()).extracting(Method::getName).noneMatch(name -> name.startsWith("set"));
+		assertThat(CityDto.class.getDeclaredFields()).allSatisfy(field ->
+				assertThat(Modifier.isFinal(field.getModifiers())).as(field.getName()).isTrue());
+	}
+
+	@Test
+	void reloadSwapsInANewSnapshotAndLeavesTheOldOneAlone() throws IOException {
+		CityCatalog catalog = catalog(false, false);
+		CityCatalog.Snapshot before = catalog.snapshot();
+		write(city("3", "Galle"));
+
+		CityCatalog.Snapshot reloaded = catalog.reload();
+
+		assertThat(catalog.snapshot()).isSameAs(reloaded);
+		assertThat(reloaded.cityCodes()).containsExactly("3");
+		assertThat(before.cityCodes()).containsExactly("1", "2", "1");
+		assertThat(events).containsExactly(new CityCatalogReloadedEvent(1));
+	}
+
+	@Test
+	void failedReloadKeepsTheCurrentSnapshot() throws IOException {
+		CityCatalog catalog = catalog(false, false);
+		CityCatalog.Snapshot before = catalog.snapshot();
+		Files.writeString(file, "{\"List\": [");
+
+		assertThatThrownBy(catalog::reload).isInstanceOf(CityLoadException.class);
+
+		assertThat(catalog.snapshot()).isSameAs(before);
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	void changedFileIsReloadedWhenWatched() throws Exception {
+		CityCatalog catalog = catalog(true, false);
+		// Give the watcher time to register before the file changes.
+		Thread.sleep(200);
+
+		write(city("3", "Galle"), city("4", "Jaffna"));
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (catalog.snapshot().size() != 2) {
+			assertThat(System.currentTimeMillis()).as("watched reload").isLessThan(deadline);
+			Thread.sleep(50);
+		}
+		assertThat(catalog.snapshot().cityCodes()).containsExactly("3", "4");
+	}
+
+	@Test
+	void backgroundLoadIsAwaitedByTheFirstReader() {
+		CityCatalog catalog = catalog(false, true);
+
+		assertThat(catalog.snapshot().size()).isEqualTo(3);
+	}
+
+	@Test
+	void failedBackgroundLoadFailsReadersUntilAReloadSucceeds() throws IOException {
+		Files.writeString(file, "not json");
+		CityCatalog catalog = catalog(false, true);
+
+		assertThatThrownBy(catalog::snapshot).isInstanceOf(CityLoadException.class);
+		assertThatThrownBy(catalog::snapshot).isInstanceOf(CityLoadException.class);
+
+		write(city("3", "Galle"));
+		catalog.reload();
+
+		assertThat(catalog.snapshot().cityCodes()).containsExactly("3");
+	}
+
+	private CityCatalog catalog(boolean watch, boolean loadInBackground) {
+		CityCatalog catalog = new CityCatalog(new CityCatalogReader(OBJECT_MAPPER, new DefaultResourceLoader()),
+				events::add, "file:" + file, watch, loadInBackground);
+		catalogs.add(catalog);
+		catalog.init();
+		return catalog;
+	}
+
+	private void write(CityDto... cities) throws IOException {
+		OBJECT_MAPPER.writeValue(file.toFile(), Map.of("List", List.of(cities)));
+	}
+
+	private static CityDto city(String code, String name) {
+		return new CityDto(code, name, "25.0", "Clear");
+	}
+}
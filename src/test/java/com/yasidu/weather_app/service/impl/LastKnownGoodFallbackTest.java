@@ -0,0 +1,105 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.cache.NoSharedWeatherStore;
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.exception.WeatherDataNotFoundException;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import com.yasidu.weather_app.util.FanOutExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Readings restored at startup stand in for failed upstream calls from the first request on, before the circuit
+ * breaker has seen enough failures to open.
+ */
+class LastKnownGoodFallbackTest {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@TempDir
+	Path tempDir;
+
+	private final LastKnownGoodWeather lastKnownGood = new LastKnownGoodWeather(1_000, Duration.ofHours(6));
+
+	private StubOpenWeather upstream;
+	private FanOutExecutor fanOutExecutor;
+	private WeatherServiceImpl service;
+	private CurrentWeather restored;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		upstream = new StubOpenWeather();
+		Path catalogFile = tempDir.resolve("cities.json");
+		OBJECT_MAPPER.writeValue(catalogFile.toFile(), Map.of("List", List.of(
+				new CityDto("1001", "Colombo", "30.0", "Clouds"), new CityDto("1002", "Kandy", "25.0", "Clouds"))));
+		CityCatalog cityCatalog = new CityCatalog(new CityCatalogReader(OBJECT_MAPPER, new DefaultResourceLoader()),
+				event -> {
+				}, "file:" + catalogFile, false, false);
+		cityCatalog.init();
+
+		fanOutExecutor = new FanOutExecutor(2, false);
+		WeatherCacheLoader loader = new WeatherCacheLoader(upstream.client(), lastKnownGood,
+				Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(1)).build(), event -> {
+		}, new NoSharedWeatherStore());
+		service = new WeatherServiceImpl(fanOutExecutor, Caffeine.newBuilder().buildAsync(loader), loader,
+				new SimpleMeterRegistry(), event -> {
+		}, cityCatalog);
+		ReflectionTestUtils.setField(service, "perCityTimeout", 5_000L);
+		ReflectionTestUtils.setField(service, "overallTimeout", 10_000L);
+		ReflectionTestUtils.setField(service, "maxBatchesInFlight", 2);
+
+		restored = StubOpenWeather.weather("1001", System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+		lastKnownGood.restore(restored);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		fanOutExecutor.destroy();
+		upstream.close();
+	}
+
+	@Test
+	void upstreamErrorIsAnsweredWithTheRestoredReading() {
+		upstream.respondWith(500);
+
+		assertThat(service.fetchWeatherForCity("1001")).isEqualTo(restored);
+		assertThat(service.fetchWeatherForCityAsync("1001").join()).isEqualTo(restored);
+	}
+
+	@Test
+	void failedGroupRequestShowsTheRestoredReadingAsStale() {
+		upstream.respondWith(500);
+
+		List<CityWeatherView> views = service.fetchWeatherForAllCitiesAsync().join();
+
+		assertThat(views.get(0).fetchStatus()).isEqualTo(CityWeatherView.FetchStatus.STALE);
+		assertThat(views.get(0).weather()).isEqualTo(restored);
+		assertThat(views.get(1).fetchStatus()).isEqualTo(CityWeatherView.FetchStatus.FAILED);
+		assertThat(service.fetchWeatherForAllCities().get(0).weather()).isEqualTo(restored);
+	}
+
+	@Test
+	void unknownCityIsNotCoveredByAnOlderReading() {
+		upstream.unknown("1001");
+
+		assertThatThrownBy(() -> service.fetchWeatherForCity("1001"))
+				.isInstanceOf(WeatherDataNotFoundException.class);
+	}
+}
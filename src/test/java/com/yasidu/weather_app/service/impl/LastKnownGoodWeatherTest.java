@@ -0,0 +1,50 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.yasidu.weather_app.support.StubOpenWeather.weather;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Entries age with the reading they hold, however late that reading was recorded.
+ */
+class LastKnownGoodWeatherTest {
+
+	private static final Duration MAX_AGE = Duration.ofMillis(500);
+
+	private final LastKnownGoodWeather lastKnownGood = new LastKnownGoodWeather(1_000, MAX_AGE);
+
+	@Test
+	void restoredReadingExpiresMaxAgeAfterItWasFetched() throws InterruptedException {
+		CurrentWeather nearlyTooOld = weather("1001", System.currentTimeMillis() - 300);
+		lastKnownGood.restore(nearlyTooOld);
+		assertThat(lastKnownGood.find("1001")).isEqualTo(nearlyTooOld);
+
+		Thread.sleep(300);
+
+		assertThat(lastKnownGood.find("1001")).isNull();
+	}
+
+	@Test
+	void readingAlreadyPastMaxAgeIsNeverServed() {
+		lastKnownGood.restore(weather("1001", System.currentTimeMillis() - MAX_AGE.toMillis() - 1));
+		lastKnownGood.record(weather("1002", System.currentTimeMillis() - MAX_AGE.toMillis() - 1));
+
+		assertThat(lastKnownGood.find("1001")).isNull();
+		assertThat(lastKnownGood.find("1002")).isNull();
+	}
+
+	@Test
+	void newerReadingRestartsTheClock() throws InterruptedException {
+		lastKnownGood.record(weather("1001", System.currentTimeMillis() - 300));
+		CurrentWeather fresh = weather("1001", System.currentTimeMillis());
+		lastKnownGood.record(fresh);
+
+		Thread.sleep(300);
+
+		assertThat(lastKnownGood.find("1001")).isEqualTo(fresh);
+	}
+}
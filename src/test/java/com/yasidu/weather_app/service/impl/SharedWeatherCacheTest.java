@@ -0,0 +1,159 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.cache.InMemorySharedWeatherStore;
+import com.yasidu.weather_app.cache.SharedWeatherStore;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.event.WeatherCacheClearedEvent;
+import com.yasidu.weather_app.event.WeatherCacheEvictedEvent;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.yasidu.weather_app.support.StubOpenWeather.weather;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances, each with its own local cache, sharing one in-memory stand-in for the L2 store and one stub
+ * upstream that records what it was asked for.
+ */
+class SharedWeatherCacheTest {
+
+	private StubOpenWeather upstream;
+	private InMemorySharedWeatherStore.Backend backend;
+	private Instance first;
+	private Instance second;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		upstream = new StubOpenWeather();
+
+		backend = new InMemorySharedWeatherStore.Backend(Duration.ofMinutes(30));
+		first = new Instance();
+		second = new Instance();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		upstream.close();
+	}
+
+	@Test
+	void readingFetchedByOneInstanceServesTheOther() throws Exception {
+		CurrentWeather loaded = first.weatherCache.get("1001").join();
+		awaitShared("1001");
+
+		CurrentWeather shared = second.weatherCache.get("1001").join();
+
+		assertThat(shared).isEqualTo(loaded);
+		assertThat(upstream.requests()).containsExactly("/weather?id=1001");
+	}
+
+	@Test
+	void groupLoadsOnlyFetchCitiesWithoutSharedReading() throws Exception {
+		first.loader.loadGroup(List.of("1001", "1002"));
+		awaitShared("1001", "1002");
+
+		Map<String, CurrentWeather> weatherByCity = second.loader.loadGroupAsync(List.of("1001", "1002", "1003")).join();
+
+		assertThat(weatherByCity).containsOnlyKeys("1001", "1002", "1003");
+		assertThat(upstream.requests()).containsExactly("/group?id=1001,1002", "/group?id=1003");
+	}
+
+	@Test
+	void slowSharedLookupDoesNotHoldUpTheGroupCaller() throws Exception {
+		CountDownLatch storeAnswers = new CountDownLatch(1);
+		SharedWeatherStore slowStore = new InMemorySharedWeatherStore(backend, Duration.ofMinutes(2)) {
+			@Override
+			public Map<String, CurrentWeather> findRecent(Collection<String> cityCodes) {
+				try {
+					storeAnswers.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.findRecent(cityCodes);
+			}
+		};
+		Instance slow = new Instance(slowStore);
+
+		long start = System.nanoTime();
+		CompletableFuture<Map<String, CurrentWeather>> weatherByCity = slow.loader.loadGroupAsync(List.of("1001"));
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+		assertThat(weatherByCity).isNotDone();
+		storeAnswers.countDown();
+		assertThat(weatherByCity.get(5, TimeUnit.SECONDS)).containsOnlyKeys("1001");
+		assertThat(upstream.requests()).containsExactly("/group?id=1001");
+	}
+
+	@Test
+	void outdatedSharedReadingIsFetchedAgain() throws Exception {
+		first.store.putAll(List.of(weather("1001", System.currentTimeMillis() - Duration.ofMinutes(10).toMillis())));
+
+		second.weatherCache.get("1001").join();
+
+		assertThat(upstream.requests()).containsExactly("/weather?id=1001");
+	}
+
+	@Test
+	void evictionReachesOtherInstances() throws Exception {
+		first.weatherCache.get("1001").join();
+		awaitShared("1001");
+		second.weatherCache.get("1001").join();
+		second.weatherCache.get("1002").join();
+
+		first.invalidator.onCityEvicted(new WeatherCacheEvictedEvent("1001"));
+
+		assertThat(second.weatherCache.synchronous().getIfPresent("1001")).isNull();
+		assertThat(second.weatherCache.synchronous().getIfPresent("1002")).isNotNull();
+		assertThat(first.store.findRecent(List.of("1001"))).isEmpty();
+
+		first.invalidator.onCacheCleared(new WeatherCacheClearedEvent());
+
+		assertThat(second.weatherCache.synchronous().asMap()).isEmpty();
+		assertThat(first.store.findRecent(List.of("1002"))).isEmpty();
+	}
+
+	private void awaitShared(String... cityCodes) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (first.store.findRecent(List.of(cityCodes)).size() < cityCodes.length) {
+			assertThat(System.currentTimeMillis()).as("shared store write").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * One application instance: its own client, local caches and loader, on the shared backend.
+	 */
+	private final class Instance {
+
+		final SharedWeatherStore store;
+		final WeatherCacheLoader loader;
+		final AsyncLoadingCache<String, CurrentWeather> weatherCache;
+		final SharedCacheInvalidator invalidator;
+
+		Instance() {
+			this(new InMemorySharedWeatherStore(backend, Duration.ofMinutes(2)));
+		}
+
+		Instance(SharedWeatherStore store) {
+			this.store = store;
+			var weatherNotFoundCache = Caffeine.newBuilder().<String, Boolean>build();
+			loader = new WeatherCacheLoader(upstream.client(), new LastKnownGoodWeather(1_000, Duration.ofHours(1)),
+					weatherNotFoundCache, event -> {
+			}, store);
+			weatherCache = Caffeine.newBuilder().buildAsync(loader);
+			invalidator = new SharedCacheInvalidator(store, weatherCache, weatherNotFoundCache);
+		}
+	}
+}
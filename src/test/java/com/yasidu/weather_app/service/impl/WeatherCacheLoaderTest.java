@@ -0,0 +1,109 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.cache.NoSharedWeatherStore;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.exception.WeatherDataNotFoundException;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Which upstream failures the loader remembers: unknown cities for the lifetime of their negative cache entry,
+ * anything else not at all.
+ */
+class WeatherCacheLoaderTest {
+
+	private static final Duration NOT_FOUND_TTL = Duration.ofMinutes(1);
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private StubOpenWeather upstream;
+	private Cache<String, Boolean> weatherNotFoundCache;
+	private WeatherCacheLoader loader;
+	private AsyncLoadingCache<String, CurrentWeather> weatherCache;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		upstream = new StubOpenWeather();
+		weatherNotFoundCache = Caffeine.newBuilder().expireAfterWrite(NOT_FOUND_TTL).ticker(nanos::get).build();
+		loader = new WeatherCacheLoader(upstream.client(), new LastKnownGoodWeather(1_000, Duration.ofHours(1)),
+				weatherNotFoundCache, event -> {
+		}, new NoSharedWeatherStore());
+		weatherCache = Caffeine.newBuilder().buildAsync(loader);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		upstream.close();
+	}
+
+	@Test
+	void unknownCityIsNotAskedForAgainUntilItsEntryExpires() {
+		upstream.unknown("404");
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> weatherCache.get("404").join())
+					.hasCauseInstanceOf(WeatherDataNotFoundException.class);
+		}
+		assertThat(upstream.requests()).containsExactly("/weather?id=404");
+		assertThat(loader.isKnownMissing("404")).isTrue();
+
+		nanos.addAndGet(NOT_FOUND_TTL.plusSeconds(1).toNanos());
+		assertThatThrownBy(() -> weatherCache.get("404").join())
+				.hasCauseInstanceOf(WeatherDataNotFoundException.class);
+
+		assertThat(upstream.requests()).hasSize(2);
+	}
+
+	@Test
+	void upstreamErrorsAreReportedAsSuchAndNotCached() {
+		upstream.respondWith(500);
+
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> weatherCache.get("1001").join())
+					.hasCauseInstanceOf(HttpServerErrorException.class);
+		}
+		assertThat(loader.isKnownMissing("1001")).isFalse();
+		assertThat(weatherCache.synchronous().getIfPresent("1001")).isNull();
+
+		upstream.respondWith(200);
+
+		assertThat(weatherCache.get("1001").join().name()).isEqualTo("Upstream 1001");
+		assertThat(upstream.requests()).hasSize(3);
+	}
+
+	@Test
+	void citiesMissingFromAGroupAnswerAreRemembered() throws Exception {
+		upstream.unknown("1002");
+
+		Map<String, CurrentWeather> weatherByCity = loader.loadGroup(List.of("1001", "1002", "1003"));
+
+		assertThat(weatherByCity).containsOnlyKeys("1001", "1003");
+		assertThat(loader.isKnownMissing("1002")).isTrue();
+		assertThatThrownBy(() -> weatherCache.get("1002").join())
+				.hasCauseInstanceOf(WeatherDataNotFoundException.class);
+		assertThat(upstream.requests()).containsExactly("/group?id=1001,1002,1003");
+	}
+
+	@Test
+	void asyncGroupAnswersAreRememberedToo() {
+		upstream.unknown("1002");
+
+		assertThat(loader.loadGroupAsync(List.of("1001", "1002")).join()).containsOnlyKeys("1001");
+
+		assertThat(loader.isKnownMissing("1002")).isTrue();
+	}
+}
@@ -0,0 +1,122 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.entity.WeatherObservation;
+import com.yasidu.weather_app.event.WeatherFetchedEvent;
+import com.yasidu.weather_app.repository.WeatherObservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against an embedded H2 database. The log writes on its own thread and connection, so the tests run outside
+ * the usual rolled-back test transaction and clean up after themselves.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WeatherObservationLogTest {
+
+	@Autowired
+	private WeatherObservationRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private WeatherObservationLog observationLog;
+
+	@BeforeEach
+	void setUp() {
+		observationLog = newLog(new LastKnownGoodWeather(1_000, Duration.ofHours(6)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		observationLog.destroy();
+		repository.deleteAllInBatch();
+	}
+
+	@Test
+	void fetchedReadingsAreWrittenBehind() throws Exception {
+		long now = System.currentTimeMillis();
+		List<CurrentWeather> readings = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			readings.add(weather(String.valueOf(1000 + i % 50), now - i));
+		}
+
+		for (int i = 0; i < readings.size(); i += 25) {
+			observationLog.onWeatherFetched(new WeatherFetchedEvent(readings.subList(i, i + 25)));
+		}
+
+		awaitRows(500);
+		assertThat(repository.findAll()).extracting(WeatherObservation::toCurrentWeather)
+				.containsExactlyInAnyOrderElementsOf(readings);
+	}
+
+	@Test
+	void restoresTheLatestRecentReadingOfEachCity() throws Exception {
+		long now = System.currentTimeMillis();
+		CurrentWeather older = weather("1001", now - Duration.ofMinutes(20).toMillis());
+		CurrentWeather latest = weather("1001", now - Duration.ofMinutes(10).toMillis());
+		CurrentWeather outdated = weather("1002", now - Duration.ofHours(7).toMillis());
+		observationLog.onWeatherFetched(new WeatherFetchedEvent(List.of(older, latest, outdated)));
+		awaitRows(3);
+
+		LastKnownGoodWeather lastKnownGood = new LastKnownGoodWeather(1_000, Duration.ofHours(6));
+		CurrentWeather fetchedSinceStart = weather("1003", now);
+		CurrentWeather persisted = weather("1003", now - Duration.ofMinutes(5).toMillis());
+		lastKnownGood.record(fetchedSinceStart);
+		observationLog.onWeatherFetched(new WeatherFetchedEvent(List.of(persisted)));
+		awaitRows(4);
+
+		newLog(lastKnownGood).restoreLastKnownGood();
+
+		assertThat(lastKnownGood.find("1001")).isEqualTo(latest);
+		assertThat(lastKnownGood.find("1002")).isNull();
+		assertThat(lastKnownGood.find("1003")).isEqualTo(fetchedSinceStart);
+	}
+
+	@Test
+	void purgeDropsObservationsPastRetention() throws Exception {
+		long now = System.currentTimeMillis();
+		observationLog.onWeatherFetched(new WeatherFetchedEvent(List.of(
+				weather("1001", now - Duration.ofDays(8).toMillis()),
+				weather("1001", now - Duration.ofDays(1).toMillis()))));
+		awaitRows(2);
+
+		observationLog.purge();
+
+		assertThat(repository.findAll()).singleElement()
+				.satisfies(observation -> assertThat(observation.getFetchedAt())
+						.isEqualTo(now - Duration.ofDays(1).toMillis()));
+	}
+
+	private WeatherObservationLog newLog(LastKnownGoodWeather lastKnownGood) {
+		return new WeatherObservationLog(repository, jdbcTemplate, lastKnownGood, new SimpleMeterRegistry(), 10_000,
+				100, Duration.ofHours(6), Duration.ofDays(7));
+	}
+
+	private void awaitRows(long rows) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (repository.count() < rows) {
+			assertThat(System.currentTimeMillis()).as("observations written").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static CurrentWeather weather(String cityCode, long fetchedAt) {
+		return new CurrentWeather(cityCode, "City " + cityCode, "light rain", "Rain", "10d", 27.5, 30.1, 26.0, 28.0,
+				1010, 80, 10000, 3.6, 220, 1700000000, 1700040000, fetchedAt);
+	}
+}
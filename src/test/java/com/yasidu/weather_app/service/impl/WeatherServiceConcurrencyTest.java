@@ -0,0 +1,264 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.cache.NoSharedWeatherStore;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.ResilienceConfig;
+import com.yasidu.weather_app.dto.CityDto;
+import com.yasidu.weather_app.dto.CityWeatherView;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.dto.WarmUpResult;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import com.yasidu.weather_app.util.FanOutExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hammers the single-city and all-cities paths from many threads at once, against a local stub upstream, and
+ * checks that merging the catalog data into the all-cities view never shows up in the shared cache entries.
+ */
+class WeatherServiceConcurrencyTest {
+
+	private static final int CITY_COUNT = 40;
+	private static final int THREADS = 8;
+	private static final int ITERATIONS = 300;
+
+	/**
+	 * Static status in the catalog; the upstream reports {@code Rain}, so a leak of one into the other shows.
+	 */
+	private static final String CATALOG_STATUS = "Clouds";
+	private static final String UPSTREAM_STATUS = StubOpenWeather.STATUS;
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@TempDir
+	Path tempDir;
+
+	private final List<CityDto> cities = new ArrayList<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private StubOpenWeather upstream;
+	private CityCatalog cityCatalog;
+	private FanOutExecutor fanOutExecutor;
+	private AsyncLoadingCache<String, CurrentWeather> weatherCache;
+	private WeatherServiceImpl service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		upstream = new StubOpenWeather();
+
+		for (int i = 0; i < CITY_COUNT; i++) {
+			cities.add(new CityDto(String.valueOf(1_000_000 + i), "City " + i, "20.0", CATALOG_STATUS));
+		}
+		Path catalogFile = tempDir.resolve("cities.json");
+		OBJECT_MAPPER.writeValue(catalogFile.toFile(), Map.of("List", cities));
+
+		fanOutExecutor = new FanOutExecutor(4, false);
+		cityCatalog = new CityCatalog(
+				new CityCatalogReader(OBJECT_MAPPER, new DefaultResourceLoader()), event -> {
+		}, "file:" + catalogFile, false, false);
+		cityCatalog.init();
+		WeatherCacheLoader loader = loader(upstream.client());
+		weatherCache = Caffeine.newBuilder().buildAsync(loader);
+		service = service(loader, weatherCache, 4);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		fanOutExecutor.destroy();
+		upstream.close();
+	}
+
+	@Test
+	void allCitiesViewsNeverLeakIntoSharedCacheEntries() throws Exception {
+		Queue<String> problems = new ConcurrentLinkedQueue<>();
+		ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+		for (int t = 0; t < THREADS; t++) {
+			int worker = t;
+			workers.submit(() -> {
+				start.await();
+				for (int i = 0; i < ITERATIONS; i++) {
+					try {
+						switch ((worker + i) % 4) {
+							case 0 -> checkAllCities(service.fetchWeatherForAllCities(), problems);
+							case 1 -> checkAllCities(service.fetchWeatherForAllCitiesAsync().join(), problems);
+							case 2 -> weatherCache.synchronous().invalidate(cities.get(i % CITY_COUNT).getCityCode());
+							default -> checkSingleCity(service.fetchWeatherForCity(cities.get(i % CITY_COUNT).getCityCode()),
+									problems);
+						}
+					} catch (RuntimeException e) {
+						problems.add(e.toString());
+					}
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		workers.shutdown();
+		assertThat(workers.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(problems).isEmpty();
+		for (CityDto city : cities) {
+			CurrentWeather cached = weatherCache.synchronous().getIfPresent(city.getCityCode());
+			if (cached != null) {
+				checkSingleCity(cached, problems);
+			}
+		}
+		assertThat(problems).isEmpty();
+	}
+
+	@Test
+	void concurrentMissesForOneCityShareOneUpstreamCall() throws Exception {
+		String cityCode = cities.get(0).getCityCode();
+		upstream.delay(300);
+		ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+		List<Future<CurrentWeather>> results = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			results.add(workers.submit(() -> {
+				start.await();
+				return service.fetchWeatherForCity(cityCode);
+			}));
+		}
+		start.countDown();
+		List<CurrentWeather> readings = new ArrayList<>();
+		for (Future<CurrentWeather> result : results) {
+			readings.add(result.get(10, TimeUnit.SECONDS));
+		}
+		workers.shutdown();
+
+		assertThat(readings).allSatisfy(weather -> assertThat(weather).isSameAs(readings.get(0)));
+		assertThat(upstream.requests()).containsExactly("/weather?id=" + cityCode);
+		assertThat(meterRegistry.get("weather.cache.coalesced").counter().count()).isEqualTo(THREADS - 1);
+
+		weatherCache.synchronous().invalidate(cityCode);
+		service.fetchWeatherForCity(cityCode);
+
+		assertThat(upstream.requests()).hasSize(2);
+	}
+
+	/**
+	 * With one bulkhead permit, the two group requests of the catalog only succeed one after the other.
+	 */
+	@Test
+	void asyncAllCitiesKeepsGroupRequestsWithinTheBulkhead() {
+		ResilienceConfig resilienceConfig = new ResilienceConfig();
+		OpenWeatherClient onePermitClient = upstream.client(
+				resilienceConfig.openWeatherCircuitBreaker(
+						resilienceConfig.circuitBreakerRegistry(50, 5_000, 80, 20, 10, 30_000, 3)),
+				resilienceConfig.openWeatherBulkhead(resilienceConfig.bulkheadRegistry(1, 0)), 1, 5_000);
+		WeatherCacheLoader loader = loader(onePermitClient);
+		WeatherServiceImpl oneBatchAtATime = service(loader, Caffeine.newBuilder().buildAsync(loader), 1);
+		upstream.delay(100);
+
+		List<CityWeatherView> views = oneBatchAtATime.fetchWeatherForAllCitiesAsync().join();
+
+		assertThat(CityWeatherView.allOk(views)).isTrue();
+		assertThat(upstream.requests()).hasSize(CITY_COUNT / OpenWeatherClient.MAX_GROUP_SIZE);
+	}
+
+	@Test
+	void warmUpCountsUnknownCitiesApartFromFailures() {
+		List<String> cityCodes = cities.stream().limit(OpenWeatherClient.MAX_GROUP_SIZE)
+				.map(CityDto::getCityCode).toList();
+		upstream.unknown(cityCodes.get(0), cityCodes.get(1));
+
+		assertThat(service.warmUpCities(cityCodes))
+				.isEqualTo(new WarmUpResult(OpenWeatherClient.MAX_GROUP_SIZE - 2, 2, 0));
+		// Now known to be missing, so not asked for at all.
+		assertThat(service.warmUpCities(cityCodes))
+				.isEqualTo(new WarmUpResult(OpenWeatherClient.MAX_GROUP_SIZE - 2, 2, 0));
+
+		upstream.respondWith(500);
+		assertThat(service.warmUpCities(cityCodes))
+				.isEqualTo(new WarmUpResult(0, 2, OpenWeatherClient.MAX_GROUP_SIZE - 2));
+	}
+
+	@Test
+	void allCitiesResultCannotBeModified() {
+		List<CityWeatherView> views = service.fetchWeatherForAllCities();
+
+		assertThat(views).hasSize(CITY_COUNT);
+		assertThatThrownBy(() -> views.add(views.get(0))).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> views.set(0, views.get(1))).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	private static WeatherCacheLoader loader(OpenWeatherClient client) {
+		return new WeatherCacheLoader(client, new LastKnownGoodWeather(1_000, Duration.ofHours(1)),
+				Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(1)).build(), event -> {
+		}, new NoSharedWeatherStore());
+	}
+
+	private WeatherServiceImpl service(WeatherCacheLoader loader, AsyncLoadingCache<String, CurrentWeather> weatherCache,
+									   int maxBatchesInFlight) {
+		WeatherServiceImpl service = new WeatherServiceImpl(fanOutExecutor, weatherCache, loader,
+				meterRegistry, event -> {
+		}, cityCatalog);
+		ReflectionTestUtils.setField(service, "perCityTimeout", 5_000L);
+		ReflectionTestUtils.setField(service, "overallTimeout", 10_000L);
+		ReflectionTestUtils.setField(service, "maxBatchesInFlight", maxBatchesInFlight);
+		return service;
+	}
+
+	private void checkAllCities(List<CityWeatherView> views, Queue<String> problems) {
+		if (views.size() != CITY_COUNT) {
+			problems.add("all-cities returned " + views.size() + " entries");
+			return;
+		}
+		for (int i = 0; i < CITY_COUNT; i++) {
+			CityDto city = cities.get(i);
+			JsonNode json = OBJECT_MAPPER.valueToTree(views.get(i));
+			expect(json, "cityCode", city.getCityCode(), problems);
+			expect(json, "cityName", city.getCityName(), problems);
+			expect(json, "staticStatus", CATALOG_STATUS, problems);
+			expect(json, "staticTemp", city.getTemp(), problems);
+			expect(json, "fetchStatus", "OK", problems);
+			expect(json, "name", "Upstream " + city.getCityCode(), problems);
+		}
+	}
+
+	private static void checkSingleCity(CurrentWeather weather, Queue<String> problems) {
+		JsonNode json = OBJECT_MAPPER.valueToTree(weather);
+		expect(json, "staticStatus", UPSTREAM_STATUS, problems);
+		expect(json, "name", "Upstream " + weather.cityCode(), problems);
+		for (String field : List.of("cityName", "staticTemp", "fetchStatus")) {
+			if (json.has(field)) {
+				problems.add("single-city weather for " + weather.cityCode() + " carries " + field);
+			}
+		}
+	}
+
+	private static void expect(JsonNode json, String field, String expected, Queue<String> problems) {
+		String actual = json.path(field).asText(null);
+		if (!expected.equals(actual)) {
+			problems.add(field + " of " + json.path("cityCode").asText() + " was " + actual + ", expected " + expected);
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package com.yasidu.weather_app.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yasidu.weather_app.config.CacheProperties;
+import com.yasidu.weather_app.controller.WeatherController;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.event.WeatherUpdatedEvent;
+import com.yasidu.weather_app.exception.GlobalExceptionHandler;
+import com.yasidu.weather_app.exception.TooManySubscribersException;
+import com.yasidu.weather_app.service.CitySyncService;
+import com.yasidu.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.yasidu.weather_app.support.StubOpenWeather.weather;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Clients of {@code /api/v1/weather/stream} through MockMvc, whose responses show every event sent so far.
+ */
+class WeatherStreamServiceImplTest {
+
+	private static final String STREAM = "/api/v1/weather/stream";
+	private static final long SEND_TIMEOUT = 200;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AsyncLoadingCache<String, CurrentWeather> weatherCache =
+			Caffeine.newBuilder().buildAsync(cityCode -> null);
+
+	private final Queue<StalledEmitter> nextEmitters = new ConcurrentLinkedQueue<>();
+
+	private WeatherStreamServiceImpl streamService;
+	private MockMvc mockMvc;
+
+	@AfterEach
+	void tearDown() {
+		if (streamService != null) {
+			streamService.destroy();
+		}
+	}
+
+	@Test
+	void subscribersGetTheCachedReadingsOfTheirCitiesRightAway() throws Exception {
+		start(10, 100, 2);
+		weatherCache.put("1001", CompletableFuture.completedFuture(weather("1001", 1L)));
+
+		MvcResult stream = subscribe("?cities=1001,1002");
+
+		String events = awaitContent(stream, "Upstream 1001");
+		assertThat(events).startsWith("event:weather\ndata:{\"cityCode\":\"1001\"");
+		assertThat(events).doesNotContain("1002");
+	}
+
+	@Test
+	void updatesReachSubscribersOfTheirCityAndOfEveryCity() throws Exception {
+		start(10, 100, 2);
+		MvcResult colombo = subscribe("?cities=1001");
+		MvcResult kandy = subscribe("?cities=1002");
+		MvcResult everyCity = subscribe("");
+
+		streamService.onWeatherUpdated(new WeatherUpdatedEvent(List.of(weather("1001", 1L))));
+
+		awaitContent(everyCity, "Upstream 1001");
+		awaitContent(colombo, "Upstream 1001");
+		assertThat(kandy.getResponse().getContentAsString()).isEmpty();
+	}
+
+	@Test
+	void heartbeatKeepsIdleStreamsAlive() throws Exception {
+		start(10, 100, 2);
+		MvcResult stream = subscribe("");
+
+		streamService.sendHeartbeats();
+
+		assertThat(awaitContent(stream, ":keep-alive")).isEqualTo(":keep-alive\n\n");
+	}
+
+	@Test
+	void subscriberLimitIsEnforced() throws Exception {
+		start(2, 100, 2);
+		subscribe("");
+		subscribe("?cities=1001");
+
+		mockMvc.perform(get(STREAM)).andExpect(status().isServiceUnavailable());
+		assertThat(meterRegistry.get("weather.stream.subscribers").gauge().value()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentConnectsCannotGetPastTheLimit() throws Exception {
+		start(5, 100, 2);
+		int connects = 20;
+		CountDownLatch go = new CountDownLatch(1);
+		AtomicInteger accepted = new AtomicInteger();
+		ExecutorService clients = Executors.newFixedThreadPool(connects);
+		try {
+			List<Future<?>> attempts = new ArrayList<>();
+			for (int i = 0; i < connects; i++) {
+				attempts.add(clients.submit(() -> {
+					go.await();
+					try {
+						streamService.subscribe(Set.of());
+						accepted.incrementAndGet();
+					} catch (TooManySubscribersException e) {
+						// Expected once the slots are taken.
+					}
+					return null;
+				}));
+			}
+			go.countDown();
+			for (Future<?> attempt : attempts) {
+				attempt.get(5, TimeUnit.SECONDS);
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+
+		assertThat(accepted).hasValue(5);
+		assertThat(meterRegistry.get("weather.stream.subscribers").gauge().value()).isEqualTo(5);
+	}
+
+	/**
+	 * More clients stop reading than there are dispatch threads; the one that still reads must keep getting readings.
+	 */
+	@Test
+	void clientsThatStopReadingHoldUpNoOtherClientAndAreDropped() throws Exception {
+		start(10, 100, 1);
+		List<StalledEmitter> stalled = List.of(new StalledEmitter(), new StalledEmitter(), new StalledEmitter());
+		nextEmitters.addAll(stalled);
+		for (int i = 0; i < stalled.size(); i++) {
+			streamService.subscribe(Set.of());
+		}
+		MvcResult reading = subscribe("");
+
+		streamService.onWeatherUpdated(new WeatherUpdatedEvent(List.of(weather("1001", 1L))));
+		for (StalledEmitter emitter : stalled) {
+			assertThat(emitter.sending.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+		streamService.onWeatherUpdated(new WeatherUpdatedEvent(List.of(weather("1002", 1L))));
+
+		awaitContent(reading, "Upstream 1002");
+
+		Thread.sleep(SEND_TIMEOUT + 50);
+		streamService.dropStalledSubscribers();
+
+		for (StalledEmitter emitter : stalled) {
+			assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+		assertThat(meterRegistry.get("weather.stream.stalled").counter().count()).isEqualTo(3);
+		assertThat(meterRegistry.get("weather.stream.subscribers").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void sendThatIsStillWithinItsTimeoutIsLeftAlone() throws Exception {
+		start(10, 100, 1);
+		StalledEmitter slow = new StalledEmitter();
+		nextEmitters.add(slow);
+		streamService.subscribe(Set.of());
+
+		streamService.onWeatherUpdated(new WeatherUpdatedEvent(List.of(weather("1001", 1L))));
+		assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+		streamService.dropStalledSubscribers();
+		slow.release.countDown();
+
+		assertThat(slow.awaitSent("Upstream 1001")).contains("event:weather");
+		assertThat(slow.completed.getCount()).isEqualTo(1);
+		assertThat(meterRegistry.get("weather.stream.stalled").counter().count()).isZero();
+	}
+
+	/**
+	 * The first reading is held up in its send, so the next ones queue up behind it.
+	 */
+	@Test
+	void subscriberThatFallsTooFarBehindIsToldToResync() throws Exception {
+		start(10, 2, 1);
+		StalledEmitter slow = new StalledEmitter();
+		nextEmitters.add(slow);
+		streamService.subscribe(Set.of());
+
+		streamService.onWeatherUpdated(new WeatherUpdatedEvent(List.of(weather("1001", 1L))));
+		assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+		streamService.onWeatherUpdated(new WeatherUpdatedEvent(List.of(
+				weather("1002", 1L), weather("1003", 1L), weather("1004", 1L))));
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (meterRegistry.get("weather.stream.resyncs").counter().count() == 0) {
+			assertThat(System.currentTimeMillis()).as("resync").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		slow.release.countDown();
+
+		assertThat(slow.awaitSent("event:resync")).doesNotContain("Upstream 1002", "Upstream 1003", "Upstream 1004");
+	}
+
+	private void start(int maxSubscribers, int maxPending, int dispatchThreads) {
+		streamService = new WeatherStreamServiceImpl(new ObjectMapper(), weatherCache, meterRegistry,
+				maxSubscribers, maxPending, dispatchThreads, 60_000, SEND_TIMEOUT) {
+			@Override
+			SseEmitter newEmitter(long timeout) {
+				StalledEmitter stalled = nextEmitters.poll();
+				return stalled != null ? stalled : super.newEmitter(timeout);
+			}
+		};
+		mockMvc = MockMvcBuilders.standaloneSetup(new WeatherController(mock(WeatherService.class),
+						mock(CitySyncService.class), streamService, new CacheProperties()))
+				.setControllerAdvice(new GlobalExceptionHandler())
+				.build();
+	}
+
+	private MvcResult subscribe(String query) throws Exception {
+		return mockMvc.perform(get(STREAM + query)).andExpect(request().asyncStarted()).andReturn();
+	}
+
+	private static String awaitContent(MvcResult stream, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!stream.getResponse().getContentAsString().contains(expected)) {
+			assertThat(System.currentTimeMillis()).as("stream content %s", expected).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+		return stream.getResponse().getContentAsString();
+	}
+
+	/**
+	 * A client that stops reading: every send blocks until released, like a servlet write to a full socket buffer.
+	 */
+	private static final class StalledEmitter extends SseEmitter {
+
+		private final CountDownLatch sending = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private final StringBuffer sent = new StringBuffer();
+
+		@Override
+		public void send(Set<DataWithMediaType> events) throws IOException {
+			sending.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IOException("Write interrupted", e);
+			}
+			events.forEach(event -> sent.append(event.getData()));
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+		String awaitSent(String expected) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (!sent.toString().contains(expected)) {
+				assertThat(System.currentTimeMillis()).as("sent %s", expected).isLessThan(deadline);
+				Thread.sleep(10);
+			}
+			return sent.toString();
+		}
+	}
+}
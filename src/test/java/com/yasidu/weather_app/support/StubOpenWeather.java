@@ -0,0 +1,193 @@
+package com.yasidu.weather_app.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.HttpClientConfig;
+import com.yasidu.weather_app.config.ResilienceConfig;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the OpenWeather {@code /weather} and {@code /group} endpoints, answering every city code with
+ * a {@code Rain} reading named {@code Upstream <code>} and recording each request as {@code /weather?id=...} or
+ * {@code /group?id=...}. Tests can make it fail with another status or answer slowly, and name cities it does
+ * not know.
+ * <p>
+ * {@link #client} wires an {@link OpenWeatherClient} to it the way the application configures one; the HTTP
+ * clients it opens are closed with the stub.
+ */
+public class StubOpenWeather implements AutoCloseable {
+
+	public static final String STATUS = "Rain";
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final HttpServer server;
+	private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+	private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+	private final List<AutoCloseable> clients = new ArrayList<>();
+	private final Set<String> unknown = ConcurrentHashMap.newKeySet();
+
+	private volatile int status = 200;
+	private volatile long delayMillis;
+
+	public StubOpenWeather() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/weather", exchange -> {
+			String id = query(exchange, "id");
+			if (unknown.contains(id)) {
+				answer(exchange, "/weather?id=" + id, 404, "{\"cod\":\"404\",\"message\":\"city not found\"}");
+				return;
+			}
+			answer(exchange, "/weather?id=" + id, cityJson(id));
+		});
+		server.createContext("/group", exchange -> {
+			String ids = query(exchange, "id");
+			List<String> entries = new ArrayList<>();
+			for (String id : ids.split(",")) {
+				if (!unknown.contains(id)) {
+					entries.add(cityJson(id));
+				}
+			}
+			answer(exchange, "/group?id=" + ids,
+					"{\"cnt\":" + entries.size() + ",\"list\":[" + String.join(",", entries) + "]}");
+		});
+		server.setExecutor(serverExecutor);
+		server.start();
+	}
+
+	public Queue<String> requests() {
+		return requests;
+	}
+
+	/**
+	 * Answers every following request with {@code status} and an error body unless it is 200.
+	 */
+	public void respondWith(int status) {
+		this.status = status;
+	}
+
+	public void delay(long millis) {
+		this.delayMillis = millis;
+	}
+
+	/**
+	 * Answers {@code /weather} for these cities with 404 and leaves them out of {@code /group} answers, as the
+	 * upstream does for ids it does not know.
+	 */
+	public void unknown(String... cityCodes) {
+		unknown.addAll(List.of(cityCodes));
+	}
+
+	public String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	public OpenWeatherClient client() {
+		ResilienceConfig resilienceConfig = new ResilienceConfig();
+		return client(resilienceConfig.openWeatherCircuitBreaker(
+						resilienceConfig.circuitBreakerRegistry(50, 5_000, 80, 20, 10, 30_000, 3)),
+				resilienceConfig.openWeatherBulkhead(resilienceConfig.bulkheadRegistry(1_000, 0)), 50, 5_000);
+	}
+
+	public OpenWeatherClient client(CircuitBreaker circuitBreaker, Bulkhead bulkhead, int maxPerRoute,
+									long readTimeout) {
+		HttpClientConfig httpClientConfig = new HttpClientConfig();
+		CloseableHttpClient httpClient = httpClientConfig.openWeatherHttpClient(
+				httpClientConfig.openWeatherConnectionManager(maxPerRoute, maxPerRoute, 1_000, readTimeout),
+				1_000, readTimeout, 30_000);
+		CloseableHttpAsyncClient asyncHttpClient = httpClientConfig.openWeatherAsyncHttpClient(
+				httpClientConfig.openWeatherAsyncConnectionManager(maxPerRoute, maxPerRoute, 1_000, readTimeout),
+				1_000, readTimeout, 30_000);
+		clients.add(httpClient);
+		clients.add(asyncHttpClient);
+
+		OpenWeatherClient client = new OpenWeatherClient(httpClientConfig.restTemplate(httpClient), asyncHttpClient,
+				OBJECT_MAPPER, circuitBreaker, bulkhead, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(client, "baseUrl", baseUrl());
+		ReflectionTestUtils.setField(client, "apiKey", "test");
+		ReflectionTestUtils.setField(client, "units", "metric");
+		return client;
+	}
+
+	@Override
+	public void close() throws Exception {
+		for (AutoCloseable client : clients) {
+			client.close();
+		}
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	public static CurrentWeather weather(String cityCode, long fetchedAt) {
+		return new CurrentWeather(cityCode, "Upstream " + cityCode, "light rain", STATUS, "10d", 27.5, 30.1, 26.0,
+				28.0, 1010, 80, 10000, 3.6, 220, 1700000000, 1700040000, fetchedAt);
+	}
+
+	public static String cityJson(String id) {
+		return "{\"id\":" + id + ",\"name\":\"Upstream " + id + "\","
+				+ "\"weather\":[{\"main\":\"" + STATUS + "\",\"description\":\"light rain\",\"icon\":\"10d\"}],"
+				+ "\"main\":{\"temp\":27.5,\"feels_like\":30.1,\"temp_min\":26.0,\"temp_max\":28.0,\"pressure\":1010,"
+				+ "\"humidity\":80},\"visibility\":10000,\"wind\":{\"speed\":3.6,\"deg\":220},"
+				+ "\"sys\":{\"sunrise\":1700000000,\"sunset\":1700040000}}";
+	}
+
+	private void answer(HttpExchange exchange, String request, String body) throws IOException {
+		int currentStatus = status;
+		answer(exchange, request, currentStatus,
+				currentStatus == 200 ? body : "{\"cod\":" + currentStatus + ",\"message\":\"stub\"}");
+	}
+
+	private void answer(HttpExchange exchange, String request, int status, String body) throws IOException {
+		requests.add(request);
+		if (delayMillis > 0) {
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Decodes the parameter from the raw query, so encoded separators in a value stay part of it.
+	 */
+	private static String query(HttpExchange exchange, String name) {
+		String rawQuery = exchange.getRequestURI().getRawQuery();
+		for (String parameter : rawQuery == null ? new String[0] : rawQuery.split("&")) {
+			int equals = parameter.indexOf('=');
+			if (equals > 0 && parameter.substring(0, equals).equals(name)) {
+				return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+			}
+		}
+		return null;
+	}
+}
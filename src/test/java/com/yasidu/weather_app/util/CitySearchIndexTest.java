@@ -0,0 +1,126 @@
+package com.yasidu.weather_app.util;
+
+import com.yasidu.weather_app.dto.CityDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Substring and prefix search against a plain scan of the same cities, including the paging of each.
+ */
+class CitySearchIndexTest {
+
+	/**
+	 * Few letters, so generated names share many n-grams.
+	 */
+	private static final String LETTERS = "abcdeklmnor";
+
+	private static final List<CityDto> CITIES = List.of(
+			city("1", "Colombo"),
+			city("2", "Kandy"),
+			city("3", "Galle"),
+			city("4", "Colomiers"),
+			city("5", "Nuwara Eliya"),
+			city("6", "COLOGNE"),
+			city("7", null),
+			city("8", "Kolonnawa"),
+			city("9", "Lomolo"));
+
+	private final CitySearchIndex index = CitySearchIndex.build(CITIES);
+
+	@Test
+	void containsIgnoresCaseAndKeepsCatalogOrder() {
+		assertThat(codes(index.contains("olo", 0, 10))).containsExactly("1", "4", "6", "8", "9");
+		assertThat(codes(index.contains(" COLO ", 0, 10))).containsExactly("1", "4", "6");
+		assertThat(codes(index.contains("ll", 0, 10))).containsExactly("3");
+		assertThat(codes(index.contains("y", 0, 10))).containsExactly("2", "5");
+		assertThat(index.contains("xyz", 0, 10)).isEmpty();
+	}
+
+	@Test
+	void trigramCandidatesAreVerified() {
+		// Lomolo has both trigrams of "olom", but not next to each other.
+		assertThat(codes(index.contains("olom", 0, 10))).containsExactly("1", "4");
+	}
+
+	@Test
+	void startsWithIsInNameOrder() {
+		assertThat(codes(index.startsWith("col", 0, 10))).containsExactly("6", "1", "4");
+		assertThat(codes(index.startsWith("colo", 1, 1))).containsExactly("1");
+		assertThat(index.startsWith("zz", 0, 10)).isEmpty();
+	}
+
+	@Test
+	void emptyQueryPagesThroughEveryCity() {
+		assertThat(codes(index.contains("", 2, 3))).containsExactly("3", "4", "5");
+		assertThat(codes(index.contains(null, 6, 10))).containsExactly("7", "8", "9");
+		assertThat(index.contains("", 20, 10)).isEmpty();
+	}
+
+	@Test
+	void pagesSkipEarlierMatches() {
+		assertThat(codes(index.contains("olo", 1, 2))).containsExactly("4", "6");
+		assertThat(codes(index.contains("ol", 3, 10))).containsExactly("8", "9");
+		assertThat(index.contains("olo", 5, 10)).isEmpty();
+		assertThat(codes(index.contains("o", 2, 1))).containsExactly("6");
+	}
+
+	@Test
+	void matchesAPlainScanOnGeneratedNames() {
+		Random random = new Random(42);
+		List<CityDto> cities = new ArrayList<>();
+		for (int i = 0; i < 2_000; i++) {
+			cities.add(city(String.valueOf(i), name(random, 3 + random.nextInt(10))));
+		}
+		CitySearchIndex generated = CitySearchIndex.build(cities);
+
+		for (int i = 0; i < 500; i++) {
+			String name = cities.get(random.nextInt(cities.size())).getCityName().toLowerCase(Locale.ROOT);
+			int from = random.nextInt(name.length());
+			String term = name.substring(from, Math.min(name.length(), from + 1 + random.nextInt(4)));
+			int offset = random.nextInt(5);
+			int limit = 1 + random.nextInt(20);
+
+			assertThat(generated.contains(term, offset, limit)).as("contains %s", term)
+					.containsExactlyElementsOf(page(cities.stream()
+							.filter(city -> lower(city).contains(term)).toList(), offset, limit));
+			assertThat(generated.startsWith(term, offset, limit)).as("startsWith %s", term)
+					.containsExactlyElementsOf(page(cities.stream()
+							.filter(city -> lower(city).startsWith(term))
+							.sorted(Comparator.comparing(CitySearchIndexTest::lower)
+									.thenComparingInt(city -> Integer.parseInt(city.getCityCode())))
+							.toList(), offset, limit));
+		}
+	}
+
+	private static List<CityDto> page(List<CityDto> matches, int offset, int limit) {
+		return matches.subList(Math.min(offset, matches.size()), Math.min(offset + limit, matches.size()));
+	}
+
+	private static String lower(CityDto city) {
+		return city.getCityName().toLowerCase(Locale.ROOT);
+	}
+
+	private static String name(Random random, int length) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			char letter = LETTERS.charAt(random.nextInt(LETTERS.length()));
+			name.append(i == 0 ? Character.toUpperCase(letter) : letter);
+		}
+		return name.toString();
+	}
+
+	private static List<String> codes(List<CityDto> cities) {
+		return cities.stream().map(CityDto::getCityCode).toList();
+	}
+
+	private static CityDto city(String code, String name) {
+		return new CityDto(code, name, "25.0", "Clear");
+	}
+}
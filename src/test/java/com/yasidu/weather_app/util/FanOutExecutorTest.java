@@ -0,0 +1,98 @@
+package com.yasidu.weather_app.util;
+
+import com.yasidu.weather_app.client.OpenWeatherClient;
+import com.yasidu.weather_app.config.ResilienceConfig;
+import com.yasidu.weather_app.dto.CurrentWeather;
+import com.yasidu.weather_app.support.StubOpenWeather;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-task deadlines: a task that misses its deadline gives its slot back then, not when its work would have
+ * ended.
+ */
+class FanOutExecutorTest {
+
+	private static final long PER_TASK_TIMEOUT_MS = 300;
+
+	private final FanOutExecutor fanOutExecutor = new FanOutExecutor(1, false);
+
+	@AfterEach
+	void tearDown() throws Exception {
+		fanOutExecutor.destroy();
+	}
+
+	@Test
+	void timedOutTaskIsInterruptedAndFreesItsSlot() {
+		long start = System.nanoTime();
+		List<FanOutResult<Integer, Integer>> results = fanOutExecutor.invokeAll(List.of(1, 2, 3), input -> {
+			if (input == 1) {
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException e) {
+					throw new IllegalStateException("interrupted", e);
+				}
+			}
+			assertThat(Thread.currentThread().isInterrupted()).isFalse();
+			return input * 10;
+		}, PER_TASK_TIMEOUT_MS, 5_000);
+		long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(results).extracting(FanOutResult::status).containsExactly(
+				FanOutResult.Status.TIMEOUT, FanOutResult.Status.OK, FanOutResult.Status.OK);
+		assertThat(results).extracting(FanOutResult::value).containsExactly(null, 20, 30);
+		assertThat(tookMs).isLessThan(2_000);
+	}
+
+	@Test
+	void remainingTaskTimeIsOnlyKnownInsideATask() {
+		assertThat(FanOutExecutor.remainingTaskTimeMillis()).isEqualTo(-1);
+
+		List<FanOutResult<Integer, Long>> results = fanOutExecutor.invokeAll(List.of(1),
+				input -> FanOutExecutor.remainingTaskTimeMillis(), PER_TASK_TIMEOUT_MS, 5_000);
+
+		assertThat(results.get(0).value()).isBetween(0L, PER_TASK_TIMEOUT_MS);
+	}
+
+	/**
+	 * The upstream answers after two seconds and the read timeout is five, yet the call and its bulkhead permit
+	 * end with the task's deadline.
+	 */
+	@Test
+	void timedOutUpstreamCallReleasesItsPermit() throws Exception {
+		ResilienceConfig resilienceConfig = new ResilienceConfig();
+		CircuitBreaker circuitBreaker = resilienceConfig.openWeatherCircuitBreaker(
+				resilienceConfig.circuitBreakerRegistry(50, 5_000, 80, 20, 10, 30_000, 3));
+		Bulkhead bulkhead = resilienceConfig.openWeatherBulkhead(resilienceConfig.bulkheadRegistry(1, 0));
+		try (StubOpenWeather upstream = new StubOpenWeather()) {
+			OpenWeatherClient client = upstream.client(circuitBreaker, bulkhead, 1, 5_000);
+			upstream.delay(2_000);
+
+			long start = System.nanoTime();
+			List<FanOutResult<String, CurrentWeather>> results = fanOutExecutor.invokeAll(List.of("1001"), cityCode -> {
+				try {
+					return client.fetchCity(cityCode);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, PER_TASK_TIMEOUT_MS, 5_000);
+
+			assertThat(results.get(0).status()).isEqualTo(FanOutResult.Status.TIMEOUT);
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (bulkhead.getMetrics().getAvailableConcurrentCalls() < 1) {
+				assertThat(System.currentTimeMillis()).as("permit released").isLessThan(deadline);
+				Thread.sleep(10);
+			}
+			assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_500);
+		}
+	}
+}